@@ -1,108 +1,396 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.Charset;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
-
-import com.infobright.etl.model.datatype.AbstractColumnType;
-import com.infobright.logging.EtlLogger;
-
-/**
- * Data structure that stores all of the data for one row to be
- * written to Infobright.
- * 
- * @author geoffrey.falk@infobright.com
- */
-public abstract class BrighthouseRecord {
-  
-  protected final List<AbstractColumnType> columns;
-  
-  private final Charset charset;
-  
-  /**
-   * Reads the abstract column types from the SQL metadata.
-   * 
-   * @param md The metadata from the JDBC result set
-   * @param charset the character set to use to encode String values
-   *   for CHAR, VARCHAR column types
-   * @param logger the logger to use
-   * @param checkValues whether to check strings for length and
-   * throw an exception immediately. Useful if implementing an error
-   * path for rejected records. 
-   *
-   * @return list of column types from the table in the database
-   * @throws SQLException
-   */
-  public static List<AbstractColumnType> readColumnTypes(ResultSetMetaData md, Charset charset, EtlLogger logger, boolean checkValues) throws SQLException {
-    List<AbstractColumnType> columns = new ArrayList<AbstractColumnType>();
-    for (int i = 1; i <= md.getColumnCount(); i++) {
-      // In theory, could find out the character set encoding for each
-      // column from the database, and pass it here, instead of relying on
-      // the character set parameter being passed in. However, the character
-      // encoding is not available from the standard JDBC/SQL metadata.
-      AbstractColumnType colType = AbstractColumnType.getInstance(md.getColumnName(i), md.getColumnType(i),
-          md.getColumnTypeName(i), md.getPrecision(i), md.getScale(i), charset, logger);
-      colType.setCheckValues(checkValues);
-      columns.add(colType);
-    }
-    return columns;
-  }
-  
-  protected BrighthouseRecord(List<AbstractColumnType> columns, Charset charset) {
-    this.columns = columns;
-    this.charset = charset;
-  }
-  
-  /**
-   * Gets the number of columns.
-   * 
-   * @return number of columns
-   */
-  public abstract int size();
-
-  /**
-   * writes data to the output stream
-   * 
-   * @throws ValueConverterException on invalid data???FIXME
-   * @param outputStream
-   */
-  public abstract void writeTo(OutputStream outputStream) throws IOException;
-
-  /**
-   * Sets value. Must be called repeatedly for each column.
-   */
-  public abstract void setData(int colidx, Object value, ValueConverter meta) throws ValueConverterException;
-
-  protected Charset getCharset() {
-    return charset;
-  }
-
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+import com.infobright.etl.model.datatype.SchemaPlan;
+import com.infobright.logging.EtlLogger;
+
+/**
+ * Data structure that stores all of the data for one row to be
+ * written to Infobright.
+ * 
+ * @author geoffrey.falk@infobright.com
+ */
+public abstract class BrighthouseRecord {
+  
+  protected final List<AbstractColumnType> columns;
+  
+  private final Charset charset;
+  
+  private final SchemaPlan plan;
+  
+  private final RecordBuffer recordBuffer = new RecordBuffer();
+  
+  private int flushThreshold = 0;
+
+  // total size of the rows encoded by writeTo()
+  private long bytesEncoded = 0;
+  // size of the record buffer after the last row was encoded
+  private int encodedSize = 0;
+  
+  // encoded field of each constant column, or null; null if none
+  private byte[][] constants;
+  
+  /**
+   * Reads the abstract column types from the SQL metadata.
+   * 
+   * @param md The metadata from the JDBC result set
+   * @param charset the character set to use to encode String values
+   *   for CHAR, VARCHAR column types
+   * @param logger the logger to use
+   * @param checkValues whether to check strings for length and
+   * throw an exception immediately. Useful if implementing an error
+   * path for rejected records. 
+   *
+   * @return list of column types from the table in the database
+   * @throws SQLException
+   */
+  public static List<AbstractColumnType> readColumnTypes(ResultSetMetaData md, Charset charset, EtlLogger logger, boolean checkValues) throws SQLException {
+    return readColumnTypes(ColumnInfo.readColumnInfo(md), charset, logger, checkValues);
+  }
+  
+  /**
+   * Creates the abstract column types from column descriptions, such as
+   * ones read earlier and cached.
+   * 
+   * @param columnInfo the descriptions of the table columns
+   * @param charset the character set to use to encode String values
+   *   for CHAR, VARCHAR column types
+   * @param logger the logger to use
+   * @param checkValues whether to check strings for length and
+   * throw an exception immediately.
+   *
+   * @return list of column types
+   */
+  public static List<AbstractColumnType> readColumnTypes(List<ColumnInfo> columnInfo, Charset charset, EtlLogger logger, boolean checkValues) {
+    List<AbstractColumnType> columns = new ArrayList<AbstractColumnType>();
+    for (ColumnInfo info : columnInfo) {
+      // In theory, could find out the character set encoding for each
+      // column from the database, and pass it here, instead of relying on
+      // the character set parameter being passed in. However, the character
+      // encoding is not available from the standard JDBC/SQL metadata.
+      AbstractColumnType colType = AbstractColumnType.getInstance(info.getName(), info.getType(),
+          info.getTypeName(), info.getPrecision(), info.getScale(), charset, logger);
+      colType.setCheckValues(checkValues);
+      columns.add(colType);
+    }
+    return columns;
+  }
+  
+  protected BrighthouseRecord(List<AbstractColumnType> columns, Charset charset) {
+    this.columns = columns;
+    this.charset = charset;
+    this.plan = new SchemaPlan(columns);
+  }
+  
+  /**
+   * Gets the number of columns.
+   * 
+   * @return number of columns
+   */
+  public abstract int size();
+
+  /**
+   * writes data to the output stream. If a flush threshold is set, the
+   * row may be kept in the record's buffer until enough rows have
+   * accumulated; call flush() after the last row.
+   * 
+   * @throws ValueConverterException on invalid data???FIXME
+   * @param outputStream
+   */
+  public abstract void writeTo(OutputStream outputStream) throws IOException;
+
+  /**
+   * Writes any rows still held in the record's buffer to the output
+   * stream, and flushes the stream.
+   * 
+   * @param outputStream
+   * @throws IOException
+   */
+  public void flush(OutputStream outputStream) throws IOException {
+    if (recordBuffer.size() > 0) {
+      recordBuffer.writeTo(outputStream);
+    }
+    encodedSize = 0;
+    outputStream.flush();
+  }
+
+  /**
+   * @return the total number of bytes of the rows encoded by writeTo(),
+   *   whether or not they have been written to the stream yet
+   */
+  public long getBytesEncoded() {
+    return bytesEncoded;
+  }
+
+  /**
+   * Sets the number of bytes of encoded rows to accumulate before they
+   * are written to the output stream in one write. The default, 0,
+   * writes each row as it is encoded. With a threshold above 0, or with
+   * a stream that takes over buffers (see BufferHandoff), flush() must
+   * be called after the last row.
+   * 
+   * @param bytes
+   */
+  public void setFlushThreshold(int bytes) {
+    this.flushThreshold = bytes;
+  }
+
+  public int getFlushThreshold() {
+    return flushThreshold;
+  }
+
+  /**
+   * Sets whether rows are encoded into a direct (off-heap) buffer rather
+   * than a heap buffer. May only be called while no rows are pending.
+   * 
+   * @param direct
+   * @throws IllegalStateException if rows are waiting to be flushed
+   */
+  public void setDirectBuffer(boolean direct) {
+    recordBuffer.setDirect(direct);
+  }
+
+  public boolean isDirectBuffer() {
+    return recordBuffer.isDirect();
+  }
+
+  /**
+   * Sets value. Must be called repeatedly for each column.
+   */
+  public abstract void setData(int colidx, Object value, ValueConverter meta) throws ValueConverterException;
+
+  /**
+   * Sets the column to null.
+   *
+   * @param colidx
+   */
+  public void setNull(int colidx) {
+    checkNotConstant(colidx);
+    columns.get(colidx).setIsNull(true);
+  }
+
+  /**
+   * Sets a value from a primitive long. For integer columns this avoids
+   * boxing and the ValueConverter entirely; other column types convert
+   * it as setData() would with a GenericValueConverter. For date and
+   * time columns, YEAR included, the value is milliseconds since the
+   * epoch.
+   *
+   * @param colidx
+   * @param value
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setLong(int colidx, long value) throws ValueConverterException {
+    checkNotConstant(colidx);
+    columns.get(colidx).setLong(value);
+  }
+
+  /**
+   * Sets a value from a primitive double. Same as setLong(), but
+   * direct for floating point columns.
+   *
+   * @param colidx
+   * @param value
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setDouble(int colidx, double value) throws ValueConverterException {
+    checkNotConstant(colidx);
+    columns.get(colidx).setDouble(value);
+  }
+
+  /**
+   * Sets a value from a range of bytes. For CHAR, VARCHAR and TEXT
+   * columns the bytes must already be encoded in the record character
+   * set; for BINARY and VARBINARY columns they are the raw value. The
+   * bytes are copied, so the array may be reused by the caller.
+   *
+   * @param colidx
+   * @param value
+   * @param offset
+   * @param length
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setBytes(int colidx, byte[] value, int offset, int length) throws ValueConverterException {
+    checkNotConstant(colidx);
+    columns.get(colidx).setBytes(value, offset, length);
+  }
+
+  /**
+   * Declares a column constant: every row written from now on has this
+   * value in the column. The value is converted and encoded once, and
+   * the encoded bytes are copied into each row. Until clearConstant() is
+   * called, setting the column throws IllegalStateException.
+   * 
+   * Batches created with createBatch() have their own copies of the
+   * columns: they neither see constants nor change them, and write
+   * whatever was set in the batch for a constant column.
+   *
+   * @param colidx
+   * @param value the value, or null
+   * @param meta
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setConstant(int colidx, Object value, ValueConverter meta) throws ValueConverterException {
+    if (constants == null) {
+      constants = new byte[columns.size()][];
+    }
+    constants[colidx] = null;
+    setData(colidx, value, meta);
+    constants[colidx] = encodeField(colidx);
+  }
+
+  /**
+   * Makes a column set by setConstant() variable again. It keeps the
+   * constant value until it is next set.
+   *
+   * @param colidx
+   */
+  public void clearConstant(int colidx) {
+    if (constants != null) {
+      constants[colidx] = null;
+    }
+  }
+
+  public boolean isConstant(int colidx) {
+    return constants != null && constants[colidx] != null;
+  }
+
+  /**
+   * @throws IllegalStateException if the column is constant
+   */
+  final void checkNotConstant(int colidx) {
+    if (constants != null && constants[colidx] != null) {
+      throw new IllegalStateException("column " + colidx + " is constant");
+    }
+  }
+
+  /**
+   * @return the encoded field of each constant column, or null for the
+   *   others; null if there are no constant columns
+   */
+  final byte[][] getConstants() {
+    return constants;
+  }
+
+  /**
+   * Writes the current value of one column as a field in the format of
+   * this record.
+   */
+  void encodeField(int colidx, ByteBuffer byteBuffer) {
+    throw new UnsupportedOperationException("constants not supported by " + getClass().getName());
+  }
+
+  private byte[] encodeField(int colidx) {
+    RecordBuffer buf = new RecordBuffer(64);
+    ByteBuffer byteBuffer = buf.getByteBuffer();
+    while (true) {
+      try {
+        encodeField(colidx, byteBuffer);
+        break;
+      } catch (BufferOverflowException e) {
+        byteBuffer = buf.grow(0);
+      }
+    }
+    byte[] field = new byte[byteBuffer.position()];
+    byteBuffer.flip();
+    byteBuffer.get(field);
+    return field;
+  }
+
+  /**
+   * Enables a cache of recently used values on every column that
+   * supports one (CHAR, VARCHAR and TEXT), so that repeated values skip
+   * character set encoding. See AbstractColumnType.setValueCacheSize().
+   * 
+   * @param size maximum number of values cached per column, or 0 for
+   *   no cache
+   */
+  public void setValueCacheSize(int size) {
+    for (AbstractColumnType col : columns) {
+      col.setValueCacheSize(size);
+    }
+  }
+
+  /**
+   * Creates a batch that holds up to <code>capacity</code> rows of this
+   * record's columns in column-oriented form and encodes them in the
+   * same format as this record. The batch has its own copies of the
+   * column types, so it does not disturb the current row, null state or
+   * constants of the record.
+   *
+   * @param capacity maximum number of rows in the batch
+   * @return a new, empty batch
+   */
+  public RecordBatch createBatch(int capacity) {
+    throw new UnsupportedOperationException("batches not supported by " + getClass().getName());
+  }
+
+  /**
+   * @return a copy of every column type, for a batch
+   */
+  List<AbstractColumnType> copyColumns() {
+    List<AbstractColumnType> copies = new ArrayList<AbstractColumnType>(columns.size());
+    for (AbstractColumnType col : columns) {
+      copies.add(col.copy());
+    }
+    return copies;
+  }
+
+  protected Charset getCharset() {
+    return charset;
+  }
+
+  SchemaPlan getPlan() {
+    return plan;
+  }
+
+  RecordBuffer getRecordBuffer() {
+    return recordBuffer;
+  }
+
+  /**
+   * Called once a row has been encoded into the record buffer. Writes
+   * the buffered rows to the stream if they reach the flush threshold.
+   */
+  void rowEncoded(OutputStream outputStream) throws IOException {
+    int rowSize = recordBuffer.size() - encodedSize;
+    bytesEncoded += rowSize;
+    recordBuffer.rowEncoded(outputStream, rowSize, flushThreshold);
+    encodedSize = recordBuffer.size();
+  }
+
+}
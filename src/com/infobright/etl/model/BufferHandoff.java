@@ -0,0 +1,51 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An output stream that can take over a filled buffer instead of
+ * copying the bytes out of it. Records and batches hand over the heap
+ * buffer they encoded their rows into, and encode the following rows
+ * into the empty buffer they get back, so that rows are encoded
+ * straight into the stream's buffers.
+ */
+public interface BufferHandoff {
+
+  /**
+   * Takes over the bytes from 0 to the position of the buffer, and
+   * returns an empty buffer to fill next, waiting for one if necessary.
+   * The caller must not use the filled buffer again, even if this
+   * throws.
+   * 
+   * @param filled a buffer with an accessible array
+   * @return a cleared buffer with an accessible array
+   * @throws IOException
+   */
+  ByteBuffer handOff(ByteBuffer filled) throws IOException;
+}
@@ -0,0 +1,98 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SQL metadata of one table column: what is needed to create its
+ * column type. Unlike a ResultSetMetaData, it can be kept and reused
+ * after the result set is closed.
+ */
+public final class ColumnInfo {
+
+  private final String name;
+  private final int type;
+  private final String typeName;
+  private final int precision;
+  private final int scale;
+
+  public ColumnInfo(String name, int type, String typeName, int precision, int scale) {
+    this.name = name;
+    this.type = type;
+    this.typeName = typeName;
+    this.precision = precision;
+    this.scale = scale;
+  }
+
+  /**
+   * Reads the descriptions of all columns of a result set.
+   * 
+   * @param md The metadata from the JDBC result set
+   * @return an unmodifiable list of the columns
+   * @throws SQLException
+   */
+  public static List<ColumnInfo> readColumnInfo(ResultSetMetaData md) throws SQLException {
+    List<ColumnInfo> columns = new ArrayList<ColumnInfo>();
+    for (int i = 1; i <= md.getColumnCount(); i++) {
+      columns.add(new ColumnInfo(md.getColumnName(i), md.getColumnType(i),
+          md.getColumnTypeName(i), md.getPrecision(i), md.getScale(i)));
+    }
+    return Collections.unmodifiableList(columns);
+  }
+  
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the SQL type, @see java.sql.Types
+   */
+  public int getType() {
+    return type;
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+  
+  @Override
+  public String toString() {
+    return name + " " + typeName + "(" + precision + "," + scale + ")";
+  }
+}
@@ -1,71 +1,98 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model;
-
-class NullIndicator {
-
-  byte[] bytes;
-
-  public NullIndicator(int numColumns) {
-    // one byte is required per 8 columns, or fraction thereof
-    int numBytes = ceilXOver8(numColumns);
-    bytes = new byte[numBytes];
-  }
-
-  public boolean isNull(int columnIdx) {
-    int byteIdx = columnIdx / 8;
-    int bitIdx = columnIdx % 8;
-    int val = bytes[byteIdx];
-    val = val >> (7 - bitIdx);
-    return ((val & 0x01) == 1);
-  }
-  
-  public void setToNull(int columnIdx) {
-    int byteIdx = columnIdx / 8;
-    int bitIdx = columnIdx % 8;
-    int bitSet = 0x01 << (7 - bitIdx);
-    bytes[byteIdx] = (byte) (bytes[byteIdx] | bitSet);
-  }
-  
-  public void reset() {
-    for (int i = 0; i < bytes.length; i++)
-      bytes[i] = 0;
-  }
-
-  public byte[] getBytes() {
-    return bytes;
-  }
-  
-  /**
-   * Computes ceil(x/8) using integer arithmetic.
-   * 
-   * @param x numerator (must be >= 0)
-   * @return
-   */
-  private static int ceilXOver8(int x) {
-    assert x >= 0;
-    return (x == 0) ? 0 : ((x - 1) / 8) + 1;
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The null indicator bytes of a binary format row: one bit per column,
+ * set if the column is null, with column 0 in the high bit of the
+ * first byte. The bits are held in longs, column 0 in the high bit of
+ * the first long, so that whole words can be set and written at once.
+ * Every word is set for every row, so the bits need no resetting.
+ */
+class NullIndicator {
+
+  private final long[] words;
+  private final int numBytes;
+
+  public NullIndicator(int numColumns) {
+    // one byte is required per 8 columns, or fraction thereof
+    numBytes = ceilXOver8(numColumns);
+    words = new long[(numColumns + 63) / 64];
+  }
+
+  /**
+   * Sets the bits of columns 64 * index to 64 * index + 63 at once.
+   * 
+   * @param index word index
+   * @param word bits, with column 64 * index in the high bit
+   */
+  public void setWord(int index, long word) {
+    words[index] = word;
+  }
+  
+  /**
+   * @return the bit of the given column within its word
+   */
+  static long bit(int columnIdx) {
+    return Long.MIN_VALUE >>> (columnIdx & 63);
+  }
+  
+  /**
+   * @return number of bytes in the row
+   */
+  public int size() {
+    return numBytes;
+  }
+  
+  /**
+   * Writes the null indicator bytes at the given index of the buffer,
+   * without moving its position.
+   */
+  public void put(ByteBuffer byteBuffer, int index) {
+    boolean swap = byteBuffer.order() == ByteOrder.LITTLE_ENDIAN;
+    int fullWords = numBytes / 8;
+    for (int w = 0; w < fullWords; w++) {
+      byteBuffer.putLong(index, swap ? Long.reverseBytes(words[w]) : words[w]);
+      index += 8;
+    }
+    for (int b = 0; b < numBytes % 8; b++) {
+      byteBuffer.put(index + b, (byte) (words[fullWords] >>> (56 - 8 * b)));
+    }
+  }
+  
+  /**
+   * Computes ceil(x/8) using integer arithmetic.
+   * 
+   * @param x numerator (must be >= 0)
+   * @return
+   */
+  private static int ceilXOver8(int x) {
+    assert x >= 0;
+    return (x == 0) ? 0 : ((x - 1) / 8) + 1;
+  }
+}
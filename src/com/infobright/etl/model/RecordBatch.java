@@ -0,0 +1,428 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+import com.infobright.etl.model.datatype.SchemaPlan;
+
+/**
+ * Holds up to <code>capacity</code> rows in column-oriented form, as
+ * per-column primitive arrays with a null bitmap per column, and
+ * encodes them all to the loader stream in one call. Obtained from
+ * BrighthouseRecord.createBatch().
+ * 
+ * Encoding runs one tight loop per column, which renders every value of
+ * that column into a per-column buffer, and then assembles the rows
+ * with plain byte copies. Integer, DOUBLE and FLOAT columns that hold
+ * only longs or only doubles are encoded straight from the arrays;
+ * other columns go through the batch's own copies of the column types,
+ * so the record it was created from is never touched.
+ * 
+ * Every cell starts out null. Cells that are never set are written as
+ * null. After writeTo(), call clear() before filling the batch again.
+ */
+public abstract class RecordBatch {
+
+  private static final byte KIND_LONG = 1;
+  private static final byte KIND_DOUBLE = 2;
+  private static final byte KIND_BYTES = 3;
+  private static final byte KIND_OBJECT = 4;
+
+  // room for any number in the text or binary format
+  private static final int MAX_NUMBER_BYTES = 32;
+
+  protected final AbstractColumnType[] columns;
+  protected final SchemaPlan plan;
+  private final boolean text;
+  private final int capacity;
+  private int rowCount = 0;
+
+  // per column: one bit per row, set if the cell is null
+  private final long[][] nullBits;
+
+  // per column: what was stored in each cell, and where
+  private final int[] kindMasks;  // bit (1 << kind) for each kind stored
+  private final byte[][] kinds;
+  private final long[][] values;  // longs, and doubles as raw bits
+  private final byte[][] byteData;
+  private final int[] byteDataUsed;
+  private final int[][] byteOffsets;
+  private final int[][] byteLengths;
+  private final Object[][] objects;
+  private final ValueConverter[][] converters;
+
+  // per column encoded values; field r ends at fieldEnds[c][r]
+  private final RecordBuffer[] fields;
+  private final int[][] fieldEnds;
+
+  private final RecordBuffer output = new RecordBuffer();
+
+  /**
+   * @param columnList column types owned by the batch
+   * @param capacity maximum number of rows
+   * @param text true if numbers are written as text, false if binary
+   */
+  protected RecordBatch(List<AbstractColumnType> columnList, int capacity, boolean text) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be > 0");
+    }
+    int n = columnList.size();
+    this.columns = columnList.toArray(new AbstractColumnType[n]);
+    this.plan = new SchemaPlan(columnList);
+    this.text = text;
+    this.capacity = capacity;
+    int words = (capacity + 63) >>> 6;
+    nullBits = new long[n][words];
+    for (int c = 0; c < n; c++) {
+      Arrays.fill(nullBits[c], -1L);
+    }
+    kindMasks = new int[n];
+    kinds = new byte[n][];
+    values = new long[n][];
+    byteData = new byte[n][];
+    byteDataUsed = new int[n];
+    byteOffsets = new int[n][];
+    byteLengths = new int[n][];
+    objects = new Object[n][];
+    converters = new ValueConverter[n][];
+    fields = new RecordBuffer[n];
+    fieldEnds = new int[n][capacity];
+    for (int c = 0; c < n; c++) {
+      fields[c] = new RecordBuffer(256);
+    }
+  }
+
+  /**
+   * @return maximum number of rows
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return number of rows, that is one more than the highest row index
+   *   set since the last clear()
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Sets the number of rows explicitly, for example when some trailing
+   * rows are entirely null.
+   */
+  public void setRowCount(int rowCount) {
+    if (rowCount < 0 || rowCount > capacity) {
+      throw new IndexOutOfBoundsException("row count " + rowCount + " exceeds capacity " + capacity);
+    }
+    this.rowCount = rowCount;
+  }
+
+  public boolean isFull() {
+    return rowCount == capacity;
+  }
+
+  /**
+   * Empties the batch. All cells become null again; the arrays are kept.
+   */
+  public void clear() {
+    for (int c = 0; c < columns.length; c++) {
+      Arrays.fill(nullBits[c], -1L);
+      kindMasks[c] = 0;
+      byteDataUsed[c] = 0;
+      if (objects[c] != null) {
+        Arrays.fill(objects[c], null);
+      }
+    }
+    rowCount = 0;
+  }
+
+  public void setNull(int row, int colidx) {
+    touch(row);
+    nullBits[colidx][row >>> 6] |= 1L << row;
+  }
+
+  public boolean isNull(int row, int colidx) {
+    return (nullBits[colidx][row >>> 6] & (1L << row)) != 0;
+  }
+
+  public void setLong(int row, int colidx, long value) {
+    store(row, colidx, KIND_LONG, value);
+  }
+
+  public void setDouble(int row, int colidx, double value) {
+    store(row, colidx, KIND_DOUBLE, Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Copies a run of long values into one column, starting at
+   * <code>firstRow</code>.
+   */
+  public void setLongs(int colidx, int firstRow, long[] src, int offset, int count) {
+    for (int i = 0; i < count; i++) {
+      store(firstRow + i, colidx, KIND_LONG, src[offset + i]);
+    }
+  }
+
+  /**
+   * Copies a run of double values into one column, starting at
+   * <code>firstRow</code>.
+   */
+  public void setDoubles(int colidx, int firstRow, double[] src, int offset, int count) {
+    for (int i = 0; i < count; i++) {
+      store(firstRow + i, colidx, KIND_DOUBLE, Double.doubleToRawLongBits(src[offset + i]));
+    }
+  }
+
+  /**
+   * Same contract as BrighthouseRecord.setBytes(). The bytes are copied
+   * into a per-column buffer.
+   */
+  public void setBytes(int row, int colidx, byte[] value, int offset, int length) {
+    store(row, colidx, KIND_BYTES, 0L);
+    int used = byteDataUsed[colidx];
+    byte[] data = byteData[colidx];
+    if (data == null || data.length - used < length) {
+      byte[] newData = new byte[Math.max(used + length, data == null ? 1024 : data.length * 2)];
+      if (data != null) {
+        System.arraycopy(data, 0, newData, 0, used);
+      }
+      byteData[colidx] = data = newData;
+    }
+    if (byteOffsets[colidx] == null) {
+      byteOffsets[colidx] = new int[capacity];
+      byteLengths[colidx] = new int[capacity];
+    }
+    System.arraycopy(value, offset, data, used, length);
+    byteOffsets[colidx][row] = used;
+    byteLengths[colidx][row] = length;
+    byteDataUsed[colidx] = used + length;
+  }
+
+  /**
+   * Stores an object to be converted at encoding time, as
+   * BrighthouseRecord.setData() would. A null value makes the cell null.
+   */
+  public void setData(int row, int colidx, Object value, ValueConverter meta) {
+    if (value == null) {
+      setNull(row, colidx);
+      return;
+    }
+    store(row, colidx, KIND_OBJECT, 0L);
+    if (objects[colidx] == null) {
+      objects[colidx] = new Object[capacity];
+      converters[colidx] = new ValueConverter[capacity];
+    }
+    objects[colidx][row] = value;
+    converters[colidx][row] = meta;
+  }
+
+  private void touch(int row) {
+    if (row < 0 || row >= capacity) {
+      throw new IndexOutOfBoundsException("row " + row + " outside batch capacity " + capacity);
+    }
+    if (row >= rowCount) {
+      rowCount = row + 1;
+    }
+  }
+
+  private void store(int row, int colidx, byte kind, long value) {
+    touch(row);
+    if (kinds[colidx] == null) {
+      kinds[colidx] = new byte[capacity];
+      values[colidx] = new long[capacity];
+    }
+    kindMasks[colidx] |= 1 << kind;
+    kinds[colidx][row] = kind;
+    values[colidx][row] = value;
+    nullBits[colidx][row >>> 6] &= ~(1L << row);
+  }
+
+  /**
+   * Loads cell (row, colidx) into the column type.
+   */
+  private void load(int row, int colidx, AbstractColumnType col) {
+    if (isNull(row, colidx)) {
+      col.setIsNull(true);
+      return;
+    }
+    switch (kinds[colidx][row]) {
+    case KIND_LONG:
+      col.setLong(values[colidx][row]);
+      break;
+    case KIND_DOUBLE:
+      col.setDouble(Double.longBitsToDouble(values[colidx][row]));
+      break;
+    case KIND_BYTES:
+      col.setBytes(byteData[colidx], byteOffsets[colidx][row], byteLengths[colidx][row]);
+      break;
+    default:
+      col.setData(objects[colidx][row], converters[colidx][row]);
+    }
+  }
+
+  /**
+   * Encodes all rows and writes them to the output stream with a single
+   * write.
+   * 
+   * @throws ValueConverterException if a value does not fit its column
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    int totalFieldBytes = 0;
+    for (int c = 0; c < columns.length; c++) {
+      totalFieldBytes += encodeColumn(c);
+    }
+    ByteBuffer out = output.ensureCapacity(rowBytes(totalFieldBytes));
+    for (int r = 0; r < rowCount; r++) {
+      assembleRow(out, r);
+    }
+    output.writeTo(outputStream);
+  }
+
+  /**
+   * Renders every value of one column into its field buffer.
+   * 
+   * @return number of bytes encoded
+   */
+  private int encodeColumn(int c) {
+    if (plan.isNumeric(c)) {
+      if (kindMasks[c] == 1 << KIND_LONG) {
+        return encodeLongs(c);
+      } else if (kindMasks[c] == 1 << KIND_DOUBLE) {
+        return encodeDoubles(c);
+      }
+    }
+    AbstractColumnType col = columns[c];
+    int[] ends = fieldEnds[c];
+    RecordBuffer field = fields[c];
+    ByteBuffer byteBuffer = field.getByteBuffer();
+    byteBuffer.clear();
+    for (int r = 0; r < rowCount; r++) {
+      load(r, c, col);
+      int start = byteBuffer.position();
+      while (true) {
+        try {
+          encodeField(c, byteBuffer);
+          break;
+        } catch (BufferOverflowException e) {
+          byteBuffer = field.grow(start);
+        }
+      }
+      ends[r] = byteBuffer.position();
+    }
+    return byteBuffer.position();
+  }
+
+  /**
+   * Encodes a numeric column that holds only longs, without going
+   * through the column type.
+   */
+  private int encodeLongs(int c) {
+    long[] vals = values[c];
+    long[] nulls = nullBits[c];
+    int[] ends = fieldEnds[c];
+    RecordBuffer field = fields[c];
+    field.getByteBuffer().clear();
+    for (int r = 0; r < rowCount; r++) {
+      ByteBuffer byteBuffer = field.ensureCapacity(MAX_NUMBER_BYTES);
+      if ((nulls[r >>> 6] & (1L << r)) != 0) {
+        putNull(c, byteBuffer);
+      } else {
+        plan.putLong(c, vals[r], text, byteBuffer);
+      }
+      ends[r] = byteBuffer.position();
+    }
+    return field.size();
+  }
+
+  /**
+   * Encodes a numeric column that holds only doubles, without going
+   * through the column type.
+   */
+  private int encodeDoubles(int c) {
+    long[] vals = values[c];
+    long[] nulls = nullBits[c];
+    int[] ends = fieldEnds[c];
+    RecordBuffer field = fields[c];
+    field.getByteBuffer().clear();
+    for (int r = 0; r < rowCount; r++) {
+      ByteBuffer byteBuffer = field.ensureCapacity(MAX_NUMBER_BYTES);
+      if ((nulls[r >>> 6] & (1L << r)) != 0) {
+        putNull(c, byteBuffer);
+      } else {
+        plan.putDouble(c, Double.longBitsToDouble(vals[r]), text, byteBuffer);
+      }
+      ends[r] = byteBuffer.position();
+    }
+    return field.size();
+  }
+
+  /**
+   * Writes a null numeric field: the null marker as text, or zero as
+   * dummy binary data.
+   */
+  private void putNull(int c, ByteBuffer byteBuffer) {
+    if (text) {
+      byteBuffer.put(TextRecord.NULL_BYTES);
+    } else {
+      plan.putLong(c, 0L, false, byteBuffer);
+    }
+  }
+
+  /**
+   * Copies field (row, colidx) to the output buffer.
+   */
+  protected final void putField(ByteBuffer out, int row, int colidx) {
+    int start = (row == 0) ? 0 : fieldEnds[colidx][row - 1];
+    int end = fieldEnds[colidx][row];
+    ByteBuffer field = fields[colidx].getByteBuffer();
+    out.put(field.array(), field.arrayOffset() + start, end - start);
+  }
+
+  /**
+   * Writes the value of column colidx in the format of this batch. The
+   * column type has already been loaded with the value.
+   */
+  protected abstract void encodeField(int colidx, ByteBuffer byteBuffer);
+
+  /**
+   * @param totalFieldBytes the size of all encoded fields together
+   * @return the exact size of the encoded batch
+   */
+  protected abstract int rowBytes(int totalFieldBytes);
+
+  /**
+   * Writes one complete row, using putField() for the column values.
+   */
+  protected abstract void assembleRow(ByteBuffer out, int row);
+}
@@ -0,0 +1,205 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reusable byte buffer into which a record encodes its rows before
+ * handing them to the output stream with a single write. The buffer
+ * grows as needed and is kept for the following rows, so once it has
+ * reached the size of the widest row (or of the rows accumulated
+ * between writes) no more memory is allocated.
+ * 
+ * The buffer is on the heap unless it is made direct. A direct buffer
+ * is handed over as is when the output stream is also a channel. A heap
+ * buffer is handed over as is when the output stream is a
+ * BufferHandoff, and replaced with the buffer the stream gives back.
+ */
+class RecordBuffer {
+
+  private static final int INITIAL_SIZE = 4096;
+
+  private static final int COPY_SIZE = 8192;
+  
+  private ByteBuffer byteBuffer;
+
+  private boolean direct = false;
+  
+  // used to copy out of a direct buffer
+  private byte[] copyBuffer;
+
+  // largest row passed to rowEncoded()
+  private int maxRowSize = 0;
+  
+  RecordBuffer() {
+    this(INITIAL_SIZE);
+  }
+
+  RecordBuffer(int initialSize) {
+    byteBuffer = allocate(Math.max(initialSize, 16));
+  }
+
+  private ByteBuffer allocate(int size) {
+    ByteBuffer buf = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    return buf;
+  }
+
+  /**
+   * Switches between a heap and a direct buffer. The buffer must be
+   * empty.
+   * 
+   * @param direct true to allocate the buffer outside the heap
+   */
+  void setDirect(boolean direct) {
+    if (byteBuffer.position() != 0) {
+      throw new IllegalStateException("buffer is not empty");
+    }
+    if (direct != this.direct) {
+      this.direct = direct;
+      byteBuffer = allocate(byteBuffer.capacity());
+    }
+  }
+
+  boolean isDirect() {
+    return direct;
+  }
+  
+  /**
+   * @return number of bytes encoded and not yet written
+   */
+  int size() {
+    return byteBuffer.position();
+  }
+
+  ByteBuffer getByteBuffer() {
+    return byteBuffer;
+  }
+
+  /**
+   * Replaces the buffer with one twice as large. The first
+   * <code>keep</code> bytes are copied over, and the new buffer is
+   * positioned just after them, ready to re-encode whatever did not
+   * fit.
+   * 
+   * @param keep number of bytes to preserve
+   * @return the new buffer
+   */
+  ByteBuffer grow(int keep) {
+    return reallocate(keep, byteBuffer.capacity() * 2);
+  }
+
+  /**
+   * Makes sure at least <code>size</code> more bytes fit after the
+   * current position, growing the buffer if necessary.
+   * 
+   * @param size number of bytes about to be written
+   * @return the buffer, which may be a new one
+   */
+  ByteBuffer ensureCapacity(int size) {
+    int keep = byteBuffer.position();
+    if (byteBuffer.capacity() - keep >= size) {
+      return byteBuffer;
+    }
+    return reallocate(keep, Math.max(byteBuffer.capacity() * 2, keep + size));
+  }
+
+  private ByteBuffer reallocate(int keep, int newSize) {
+    ByteBuffer newBuffer = allocate(newSize);
+    byteBuffer.limit(keep);
+    byteBuffer.position(0);
+    newBuffer.put(byteBuffer);
+    byteBuffer = newBuffer;
+    return newBuffer;
+  }
+
+  /**
+   * Called once a row of <code>rowSize</code> bytes has been encoded.
+   * Writes the encoded bytes to the output stream if they reach the
+   * threshold. A buffer that would be handed over to the stream is kept
+   * until it may not have room for another row as large as the largest
+   * so far, so that the stream is handed full buffers.
+   */
+  void rowEncoded(OutputStream os, int rowSize, int threshold) throws IOException {
+    if (rowSize > maxRowSize) {
+      maxRowSize = rowSize;
+    }
+    if (byteBuffer.position() < threshold) {
+      return;
+    }
+    if (isHandedOff(os) && byteBuffer.remaining() >= maxRowSize) {
+      return;
+    }
+    writeTo(os);
+  }
+
+  private boolean isHandedOff(OutputStream os) {
+    return !direct && os instanceof BufferHandoff;
+  }
+
+  /**
+   * Writes the encoded bytes to the output stream and empties the
+   * buffer.
+   */
+  void writeTo(OutputStream os) throws IOException {
+    if (isHandedOff(os)) {
+      ByteBuffer next = null;
+      try {
+        next = ((BufferHandoff) os).handOff(byteBuffer);
+        next.order(ByteOrder.LITTLE_ENDIAN);
+      } finally {
+        // never keep a buffer the stream may have taken, even if it failed
+        byteBuffer = (next != null) ? next : allocate(byteBuffer.capacity());
+      }
+      return;
+    }
+    if (byteBuffer.hasArray()) {
+      os.write(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.position());
+    } else if (os instanceof WritableByteChannel) {
+      WritableByteChannel channel = (WritableByteChannel) os;
+      byteBuffer.flip();
+      while (byteBuffer.hasRemaining()) {
+        channel.write(byteBuffer);
+      }
+    } else {
+      if (copyBuffer == null) {
+        copyBuffer = new byte[COPY_SIZE];
+      }
+      byteBuffer.flip();
+      while (byteBuffer.hasRemaining()) {
+        int len = Math.min(byteBuffer.remaining(), copyBuffer.length);
+        byteBuffer.get(copyBuffer, 0, len);
+        os.write(copyBuffer, 0, len);
+      }
+    }
+    byteBuffer.clear();
+  }
+}
@@ -1,127 +1,159 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.Charset;
-import java.util.List;
-
-import com.infobright.etl.model.ValueConverter;
-import com.infobright.etl.model.ValueConverterException;
-import com.infobright.etl.model.datatype.AbstractColumnType;
-import com.infobright.logging.EtlLogger;
-
-class TeradataBinaryRecord extends BrighthouseRecord {
- 
-  private static final int BUFFER_SIZE = 100000; // TODO is this long enough?
-  
-  private final ByteBuffer byteBuffer;
-
-  private final NullIndicator nullind;
-  
-  @SuppressWarnings("unused")
-  private final EtlLogger logger;
-
-  TeradataBinaryRecord(List<AbstractColumnType> columns, Charset charset) {
-    this(columns, charset, null);
-  }
-
-  TeradataBinaryRecord(List<AbstractColumnType> columns, Charset charset, EtlLogger logger) {
-    super(columns, charset);
-    this.logger = logger;
-    nullind = new NullIndicator(columns.size()); 
-    byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-    byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-  }
-  
-  @Override
-  public int size() {
-    return columns.size();
-  }
-  
-  @Override
-  public void writeTo(OutputStream os) throws IOException {
-  
-    /*
-     * skip the first 2 bytes representing the length of the record
-     * until we can figure out how long the record should be
-     */ 
-    
-    byteBuffer.rewind();
-    short len = 0;
-    byteBuffer.putShort(len);
-    int startingPosition = byteBuffer.position();
-
-    /*
-     * Now put out the null indicator bytes
-     */
-    nullind.reset();
-    int colidx = -1;
-    for (AbstractColumnType col : columns) {
-      colidx++;
-      if (col.getIsNull()) {
-        nullind.setToNull(colidx);
-      }
-    }
-    byteBuffer.put(nullind.getBytes());
-  
-    /*
-     * Now write out each column data in its native format
-     */
-    
-    for (AbstractColumnType col : columns) {
-        col.getData(byteBuffer);
-    }
-    
-    /*
-     * Now write the real length at the beginning of the buffer
-     */
-    int currentPosition = byteBuffer.position();
-    len = (short) (currentPosition - startingPosition);
-    byteBuffer.rewind();
-    byteBuffer.putShort(len);
-    byteBuffer.position(currentPosition);
-
-    /*
-     * write the data to the output stream
-     */
-    byte[] data = byteBuffer.array();
-    os.write(data, 0, len + 2);
-  }
-
-  @Override
-  public void setData(int colidx, Object value, ValueConverter meta) throws ValueConverterException {
-    AbstractColumnType col = columns.get(colidx);
-    if (value == null) {
-      col.setIsNull(true);
-    } else {
-      col.setIsNull(false);
-      col.setData(value, meta);
-    }
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.infobright.etl.model.ValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+import com.infobright.etl.model.datatype.AbstractColumnType;
+import com.infobright.etl.model.datatype.SchemaPlan;
+import com.infobright.logging.EtlLogger;
+
+/**
+ * A row in the Teradata binary format: a 2-byte length, the null
+ * indicator bytes, and then each column in its native format. Rows are
+ * encoded into the record buffer, which grows to fit wide rows.
+ */
+class TeradataBinaryRecord extends BrighthouseRecord {
+ 
+  private final AbstractColumnType[] columnArray;
+
+  private final NullIndicator nullind;
+  
+  @SuppressWarnings("unused")
+  private final EtlLogger logger;
+
+  TeradataBinaryRecord(List<AbstractColumnType> columns, Charset charset) {
+    this(columns, charset, null);
+  }
+
+  TeradataBinaryRecord(List<AbstractColumnType> columns, Charset charset, EtlLogger logger) {
+    super(columns, charset);
+    this.logger = logger;
+    columnArray = columns.toArray(new AbstractColumnType[columns.size()]);
+    nullind = new NullIndicator(columns.size()); 
+  }
+  
+  @Override
+  public int size() {
+    return columns.size();
+  }
+  
+  @Override
+  public void writeTo(OutputStream os) throws IOException {
+    RecordBuffer recordBuffer = getRecordBuffer();
+    ByteBuffer byteBuffer = recordBuffer.getByteBuffer();
+    int rowStart = byteBuffer.position();
+    while (true) {
+      try {
+        encodeRow(byteBuffer, rowStart);
+        break;
+      } catch (BufferOverflowException e) {
+        byteBuffer = recordBuffer.grow(rowStart);
+      }
+    }
+    rowEncoded(os);
+  }
+
+  private void encodeRow(ByteBuffer byteBuffer, int rowStart) {
+  
+    /*
+     * skip the first 2 bytes representing the length of the record
+     * until we can figure out how long the record should be
+     */ 
+    
+    byteBuffer.putShort((short) 0);
+    int startingPosition = byteBuffer.position();
+
+    /*
+     * Leave room for the null indicator bytes
+     */
+    int nullPosition = byteBuffer.position();
+    if (byteBuffer.remaining() < nullind.size()) {
+      throw new BufferOverflowException();
+    }
+    byteBuffer.position(nullPosition + nullind.size());
+  
+    /*
+     * Now write out each column data in its native format, collecting
+     * the null indicator bits a word at a time as we go
+     */
+    SchemaPlan plan = getPlan();
+    byte[][] constants = getConstants();
+    long word = 0L;
+    for (int colidx = 0; colidx < columnArray.length; colidx++) {
+      if (plan.getIsNull(colidx)) {
+        word |= NullIndicator.bit(colidx);
+      }
+      if (constants != null && constants[colidx] != null) {
+        byteBuffer.put(constants[colidx]);
+      } else {
+        plan.getData(colidx, byteBuffer);
+      }
+      if ((colidx & 63) == 63) {
+        nullind.setWord(colidx >>> 6, word);
+        word = 0L;
+      }
+    }
+    if ((columnArray.length & 63) != 0) {
+      nullind.setWord(columnArray.length >>> 6, word);
+    }
+    nullind.put(byteBuffer, nullPosition);
+    
+    /*
+     * Now write the real length at the beginning of the row
+     */
+    short len = (short) (byteBuffer.position() - startingPosition);
+    byteBuffer.putShort(rowStart, len);
+  }
+
+  @Override
+  void encodeField(int colidx, ByteBuffer byteBuffer) {
+    getPlan().getData(colidx, byteBuffer);
+  }
+
+  @Override
+  public RecordBatch createBatch(int capacity) {
+    return new TeradataBinaryRecordBatch(copyColumns(), capacity);
+  }
+
+  @Override
+  public void setData(int colidx, Object value, ValueConverter meta) throws ValueConverterException {
+    checkNotConstant(colidx);
+    AbstractColumnType col = columns.get(colidx);
+    if (value == null) {
+      col.setIsNull(true);
+    } else {
+      col.setIsNull(false);
+      col.setData(value, meta);
+    }
+  }
+}
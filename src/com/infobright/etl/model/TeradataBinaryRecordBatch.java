@@ -0,0 +1,81 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+
+/**
+ * Batch of rows in the binary format: each row is a 2-byte length,
+ * the null indicator bytes, and the column values.
+ */
+class TeradataBinaryRecordBatch extends RecordBatch {
+
+  private final NullIndicator nullind;
+
+  TeradataBinaryRecordBatch(List<AbstractColumnType> columns, int capacity) {
+    super(columns, capacity, false);
+    nullind = new NullIndicator(columns.size());
+  }
+
+  @Override
+  protected void encodeField(int colidx, ByteBuffer byteBuffer) {
+    // null columns were zeroed out when loaded, and are written as dummy data
+    plan.getData(colidx, byteBuffer);
+  }
+
+  @Override
+  protected int rowBytes(int totalFieldBytes) {
+    return totalFieldBytes + getRowCount() * (2 + nullind.size());
+  }
+
+  @Override
+  protected void assembleRow(ByteBuffer out, int row) {
+    int lengthPosition = out.position();
+    out.putShort((short) 0);
+    int startingPosition = out.position();
+    int nullPosition = out.position();
+    out.position(nullPosition + nullind.size());
+    long word = 0L;
+    for (int c = 0; c < columns.length; c++) {
+      if (isNull(row, c)) {
+        word |= NullIndicator.bit(c);
+      }
+      putField(out, row, c);
+      if ((c & 63) == 63) {
+        nullind.setWord(c >>> 6, word);
+        word = 0L;
+      }
+    }
+    if ((columns.length & 63) != 0) {
+      nullind.setWord(columns.length >>> 6, word);
+    }
+    nullind.put(out, nullPosition);
+    out.putShort(lengthPosition, (short) (out.position() - startingPosition));
+  }
+}
@@ -1,134 +1,274 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.Charset;
-import java.util.List;
-
-import com.infobright.etl.model.datatype.AbstractColumnType;
-
-class TextRecord extends BrighthouseRecord {
-
-  TextRecord(List<AbstractColumnType> columns, Charset charset) {
-    super(columns, charset);
-    data = new String[columns.size()];
-  }
-  
-  /**
-   * Delimiter to use for text load
-   */
-  static final String TXT_DELIMITER = ",";
-  
-  /**
-   * Enclosure to use for text load
-   */
-  static final Character TXT_ENCLOSURE = '\"';
-
-  /**
-   * Escape character to use for text load
-   */
-  static final Character TXT_ESC_CHAR = '\\';
-
-  /**
-   * Indication of null in a text load file
-   */
-  static final String NULL_STR = "\\N";
-  
-  private final byte[] lineTerminator = System.getProperty("line.separator").getBytes();
-  private final String[] data;
-
-  @Override
-  public int size() {
-    return data.length;
-  }
-  
-  @Override
-  public void writeTo(OutputStream outputStream) throws IOException {
-    for (int i = 0; i < data.length; i++) {
-      if (data[i] != null) {
-        byte[] bytes = data[i].getBytes(getCharset().name());
-        outputStream.write(bytes);
-      }
-      if (i < data.length - 1) {
-        outputStream.write(TXT_DELIMITER.getBytes());
-      }
-    }
-    outputStream.write(lineTerminator);
-  }
-
-  @Override
-  public void setData(int colidx, Object value, ValueConverter meta)
-      throws ValueConverterException {
-    if (value == null) {
-      data[colidx] = NULL_STR;
-      return;
-    }
-    AbstractColumnType type = columns.get(colidx);
-    type.setData(value, meta);
-    String sData = type.getDataAsString();
-    if (sData == null) {
-      data[colidx] = NULL_STR;
-      return;
-    }
-    // If database column needs enclosures, use enclosures
-    if (type.isNeedsEnclosures()) {
-      sData = escapeString(sData);
-    }
-    data[colidx] = sData;
-  }
-
-  private String escapeString(String str) {
-    StringBuffer buf = new StringBuffer(TXT_ENCLOSURE.toString());
-    if (str.indexOf(TXT_ENCLOSURE) >= 0 || str.indexOf(TXT_ESC_CHAR) >= 0) {
-      // escape all embedded enclosure and escape characters
-      for (int i = 0; i < str.length(); i++) {
-        char c = str.charAt(i);
-        if (TXT_ENCLOSURE.equals(c) || TXT_ESC_CHAR.equals(c)) {
-          buf.append(TXT_ESC_CHAR);
-        }
-        buf.append(c);
-      }
-    } else {
-      buf.append(str);
-    }
-    buf.append(TXT_ENCLOSURE);
-    return buf.toString();
-  }
-  
-  public String toString() {
-    StringBuffer buf = new StringBuffer();
-    for (int i = 0; i < data.length; i++) {
-      if (data[i] != null) {
-        buf.append(data[i]);
-      }
-      if (i < data.length - 1) {
-        buf.append(TXT_DELIMITER);
-      }
-    }
-    return buf.toString();
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+import com.infobright.etl.model.datatype.SchemaPlan;
+
+/**
+ * A row in the delimited text format. setData() only stores the value
+ * in the column; writeTo() then encodes the delimiters, enclosures,
+ * escapes and column values straight into the record buffer, and
+ * writes the whole row (or several rows) to the stream at once.
+ * 
+ * Each column keeps its value until it is set again. A column that has
+ * never been set is written as the zero value of its type (0, "", the
+ * epoch for dates), where an empty field used to be written.
+ */
+class TextRecord extends BrighthouseRecord {
+
+  TextRecord(List<AbstractColumnType> columns, Charset charset) {
+    super(columns, charset);
+    this.columnArray = columns.toArray(new AbstractColumnType[columns.size()]);
+    this.escapeBytes = isEscapableAsBytes(charset);
+  }
+  
+  /**
+   * Delimiter to use for text load
+   */
+  static final String TXT_DELIMITER = ",";
+  
+  /**
+   * Enclosure to use for text load
+   */
+  static final Character TXT_ENCLOSURE = '\"';
+
+  /**
+   * Escape character to use for text load
+   */
+  static final Character TXT_ESC_CHAR = '\\';
+
+  /**
+   * Indication of null in a text load file
+   */
+  static final String NULL_STR = "\\N";
+  
+  static final byte DELIMITER_BYTE = (byte) TXT_DELIMITER.charAt(0);
+  private static final byte ENCLOSURE_BYTE = (byte) TXT_ENCLOSURE.charValue();
+  private static final byte ESC_BYTE = (byte) TXT_ESC_CHAR.charValue();
+  static final byte[] NULL_BYTES = { ESC_BYTE, (byte) 'N' };
+
+  private final byte[] lineTerminator = System.getProperty("line.separator").getBytes();
+  private final AbstractColumnType[] columnArray;
+  
+  /**
+   * True if escapes can be inserted into the encoded bytes. This holds
+   * for UTF-8 and the single-byte ASCII-based character sets, where the
+   * enclosure and escape bytes never occur inside another character.
+   * For other character sets the value is escaped as a String first.
+   */
+  private final boolean escapeBytes;
+
+  @Override
+  public int size() {
+    return columnArray.length;
+  }
+  
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    RecordBuffer recordBuffer = getRecordBuffer();
+    ByteBuffer byteBuffer = recordBuffer.getByteBuffer();
+    int rowStart = byteBuffer.position();
+    while (true) {
+      try {
+        encodeRow(byteBuffer);
+        break;
+      } catch (BufferOverflowException e) {
+        byteBuffer = recordBuffer.grow(rowStart);
+      }
+    }
+    rowEncoded(outputStream);
+  }
+
+  private void encodeRow(ByteBuffer byteBuffer) {
+    byte[][] constants = getConstants();
+    for (int i = 0; i < columnArray.length; i++) {
+      if (i > 0) {
+        byteBuffer.put(DELIMITER_BYTE);
+      }
+      if (constants != null && constants[i] != null) {
+        byteBuffer.put(constants[i]);
+      } else {
+        encodeField(i, byteBuffer);
+      }
+    }
+    byteBuffer.put(lineTerminator);
+  }
+
+  @Override
+  void encodeField(int colidx, ByteBuffer byteBuffer) {
+    encodeField(getPlan(), colidx, byteBuffer);
+  }
+
+  /**
+   * Writes the current value of one column of the plan as a field of
+   * the text format: the null marker, or the value with enclosures and
+   * escapes if the column type needs them. Batches pass their own plan.
+   */
+  void encodeField(SchemaPlan plan, int colidx, ByteBuffer byteBuffer) {
+    if (plan.getIsNull(colidx)) {
+      byteBuffer.put(NULL_BYTES);
+    } else if (!plan.isNeedsEnclosures(colidx)) {
+      plan.getDataAsText(colidx, byteBuffer);
+    } else if (escapeBytes) {
+      // If database column needs enclosures, use enclosures
+      byteBuffer.put(ENCLOSURE_BYTE);
+      int start = byteBuffer.position();
+      plan.getDataAsText(colidx, byteBuffer);
+      if (plan.mayNeedEscaping(colidx)) {
+        escapeInPlace(byteBuffer, start);
+      }
+      byteBuffer.put(ENCLOSURE_BYTE);
+    } else {
+      byteBuffer.put(encode(escapeString(plan.getColumn(colidx).getDataAsString())));
+    }
+  }
+
+  byte[] getLineTerminator() {
+    return lineTerminator;
+  }
+
+  @Override
+  public RecordBatch createBatch(int capacity) {
+    return new TextRecordBatch(this, copyColumns(), capacity);
+  }
+
+  /**
+   * Inserts an escape before every enclosure or escape byte written
+   * since position <code>start</code>, shifting the rest of the value
+   * to the right.
+   */
+  private static void escapeInPlace(ByteBuffer byteBuffer, int start) {
+    int end = byteBuffer.position();
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      byte b = byteBuffer.get(i);
+      if (b == ENCLOSURE_BYTE || b == ESC_BYTE) {
+        count++;
+      }
+    }
+    if (count == 0) {
+      return;
+    }
+    if (byteBuffer.remaining() < count) {
+      throw new BufferOverflowException();
+    }
+    int dst = end + count;
+    for (int src = end - 1; src >= start; src--) {
+      byte b = byteBuffer.get(src);
+      byteBuffer.put(--dst, b);
+      if (b == ENCLOSURE_BYTE || b == ESC_BYTE) {
+        byteBuffer.put(--dst, ESC_BYTE);
+      }
+    }
+    byteBuffer.position(end + count);
+  }
+
+  private static boolean isEscapableAsBytes(Charset charset) {
+    if ("UTF-8".equals(charset.name())) {
+      return true;
+    }
+    try {
+      if (charset.newEncoder().maxBytesPerChar() != 1.0f) {
+        return false;
+      }
+    } catch (UnsupportedOperationException e) {
+      // decode-only character set
+      return false;
+    }
+    String special = TXT_DELIMITER + TXT_ENCLOSURE + TXT_ESC_CHAR;
+    ByteBuffer bytes = charset.encode(special);
+    return bytes.remaining() == 3 && bytes.get(0) == DELIMITER_BYTE
+        && bytes.get(1) == ENCLOSURE_BYTE && bytes.get(2) == ESC_BYTE;
+  }
+
+  private byte[] encode(String str) {
+    try {
+      return str.getBytes(getCharset().name());
+    } catch (UnsupportedEncodingException e) {
+      // should not happen, since we started with a valid Charset
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void setData(int colidx, Object value, ValueConverter meta)
+      throws ValueConverterException {
+    checkNotConstant(colidx);
+    AbstractColumnType type = columnArray[colidx];
+    if (value == null) {
+      type.setIsNull(true);
+    } else {
+      type.setData(value, meta);
+    }
+  }
+
+  private String escapeString(String str) {
+    StringBuffer buf = new StringBuffer(TXT_ENCLOSURE.toString());
+    if (str.indexOf(TXT_ENCLOSURE) >= 0 || str.indexOf(TXT_ESC_CHAR) >= 0) {
+      // escape all embedded enclosure and escape characters
+      for (int i = 0; i < str.length(); i++) {
+        char c = str.charAt(i);
+        if (TXT_ENCLOSURE.equals(c) || TXT_ESC_CHAR.equals(c)) {
+          buf.append(TXT_ESC_CHAR);
+        }
+        buf.append(c);
+      }
+    } else {
+      buf.append(str);
+    }
+    buf.append(TXT_ENCLOSURE);
+    return buf.toString();
+  }
+  
+  public String toString() {
+    RecordBuffer buf = new RecordBuffer();
+    ByteBuffer byteBuffer = buf.getByteBuffer();
+    while (true) {
+      try {
+        encodeRow(byteBuffer);
+        break;
+      } catch (BufferOverflowException e) {
+        byteBuffer = buf.grow(0);
+      }
+    }
+    int len = byteBuffer.position() - lineTerminator.length;
+    try {
+      return new String(byteBuffer.array(), 0, len, getCharset().name());
+    } catch (UnsupportedEncodingException e) {
+      // should not happen, since we started with a valid Charset
+      throw new RuntimeException(e);
+    }
+  }
+}
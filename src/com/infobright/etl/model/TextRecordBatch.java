@@ -0,0 +1,68 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+
+/**
+ * Batch of rows in the delimited text format.
+ */
+class TextRecordBatch extends RecordBatch {
+
+  private final TextRecord record;
+  private final byte[] lineTerminator;
+
+  TextRecordBatch(TextRecord record, List<AbstractColumnType> columns, int capacity) {
+    super(columns, capacity, true);
+    this.record = record;
+    this.lineTerminator = record.getLineTerminator();
+  }
+
+  @Override
+  protected void encodeField(int colidx, ByteBuffer byteBuffer) {
+    record.encodeField(plan, colidx, byteBuffer);
+  }
+
+  @Override
+  protected int rowBytes(int totalFieldBytes) {
+    int delimiters = Math.max(columns.length - 1, 0);
+    return totalFieldBytes + getRowCount() * (delimiters + lineTerminator.length);
+  }
+
+  @Override
+  protected void assembleRow(ByteBuffer out, int row) {
+    for (int c = 0; c < columns.length; c++) {
+      if (c > 0) {
+        out.put(TextRecord.DELIMITER_BYTE);
+      }
+      putField(out, row, c);
+    }
+    out.put(lineTerminator);
+  }
+}
@@ -1,227 +1,353 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model.datatype;
-
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.sql.Types;
-
-import com.infobright.etl.model.ValueConverter;
-import com.infobright.etl.model.ValueConverterException;
-import com.infobright.logging.EtlLogger;
-
-public abstract class AbstractColumnType {
-
-  private String columnName;
-  private boolean isNull;
-  private boolean checkValues = false;
-  
-  /**
-   * Sets column data supplied on byteBuffer
-   * @param byteBuffer
-   * @throws InvalidDataException
-   */
-  public abstract void setData(ByteBuffer byteBuffer) throws InvalidDataException;
-
-  /**
-   * Sets column data supplied from string
-   * @param string
-   */
-  public abstract void setData(String string);
-
-  /**
-   * Gets column data as a string
-   * @return string
-   */
-  public abstract String getDataAsString();
-
-  /**
-   * Gets column data and writes it to the supplied byteBuffer
-   * @param byteBuffer
-   */
-  public abstract void getData(ByteBuffer byteBuffer);
-
-  /**
-   * Setter to mark this column as null.
-   * 
-   * @param b
-   */
-  public void setIsNull(boolean b) {
-    isNull = b;
-    if (b) {
-      zeroOutData();
-    }
-  }
-
-  /**
-   * @return true if this column data is null
-   */
-  public boolean getIsNull() {
-    return isNull;
-  }
-  
-  /**
-   * Sets the column name.
-   * @param columnName
-   */
-  public void setColumnName(String columnName) {
-    this.columnName = columnName;
-  }
-  
-  /**
-   * @return column name
-   */
-  public String getColumnName() {
-    return columnName;
-  }
-  
-  /**
-   * Used to set the data to an init value because even when
-   * a field is null, the binary format loader/unloader
-   * expects there to be dummy data in the record.
-   */
-  protected abstract void zeroOutData();
-
-  /**
-   * Sets column data supplied from kettle Value
-   * @param value
-   * @throws ValueConverterException
-   */
-  public abstract void setData(Object value, ValueConverter meta) throws ValueConverterException;
-
-  /**
-   * Is this a type of data (CHAR, VARCHAR DATE, DATETIME, etc.), that needs
-   * to be enclosed for text load?
-   */
-  public abstract boolean isNeedsEnclosures();
-
-  /**
-   * Should strings and binary types be checked for size before being
-   * passed to the database? (Should be set to TRUE if you support an
-   * error path)
-   * 
-   * @param checkValues
-   */
-  public void setCheckValues(boolean checkValues) {
-    this.checkValues = checkValues;
-  }
-
-  public boolean isCheckValues() {
-    return checkValues;
-  }
-  
-  /**
-   * Factory method that creates an instance of the column type
-   * appropriate for the JDBC column type supplied.  When new
-   * column types are added, they must also be added to this method.
-   * 
-   * @param columnName
-   * @param columnType @see java.sql.Types
-   * @param columnTypeName 
-   * @param precision
-   * @param scale
-   * @param charset
-   * @param logger
-   * @return a column type
-   */
-  public static AbstractColumnType getInstance(String columnName, int columnType,
-      String columnTypeName, int precision, int scale, Charset charset,
-      EtlLogger logger) {
-    if (logger != null) {
-      String logMsg;
-      if (scale == 0) {
-        logMsg = String.format("Column: %s %s(%d)", columnName, columnTypeName, precision);
-      } else {
-        logMsg = String.format("Column: %s %s(%d,%d)", columnName, columnTypeName, precision, scale);
-      }
-      logger.info(logMsg);
-    }
-    AbstractColumnType col = null;
-    if (columnType == Types.VARCHAR) {
-      col = new VarcharType(precision, charset);
-    } else if (columnType == Types.SMALLINT) {
-      col = new SmallintType();
-    } else if (columnType == Types.INTEGER) {
-      // MEDIUMINT is MySQL-specific and does not have its own sql Type
-      if ("MEDIUMINT".equalsIgnoreCase(columnTypeName)) {
-        col = new MediumintType();
-      } else {
-        col = new IntegerType();
-      }
-    } else if (columnType == Types.TINYINT || columnType == Types.BOOLEAN) {
-      col = new TinyintType();
-    } else if (columnType == Types.BIGINT) {
-      col = new BigintType();
-    } else if (columnType == Types.FLOAT || columnType == Types.REAL) {
-      col = new FloatType();
-    } else if (columnType == Types.DOUBLE) {
-      col = new DoubleType();
-    } else if (columnType == Types.CHAR) {
-      col = new CharType(precision, charset);
-    } else if (columnType == Types.TIMESTAMP) {
-      // TIMESTAMP, DATETIME are treated the same
-      col = new DatetimeType();
-    } else if (columnType == Types.DATE) {
-      if (precision == 4) {
-        col = new YearType(); // show up as precision 4
-      } else { /* precision == 10 */
-        col = new DateIntType();
-      }
-    } else if (columnType == Types.BINARY) {
-      col = new BinaryType(precision);
-    } else if (columnType == Types.VARBINARY) {
-      col = new VarbinaryType(precision);
-    } else if (columnType == Types.LONGVARCHAR) {
-      col = new TextType(precision, charset);
-    } else if (columnType == Types.DECIMAL) {
-      col = new DecimalType(precision, scale);
-    } else if (columnType == Types.TIME) {
-      col = new TimeType();
-    } else {
-      throw new RuntimeException("Unsupported type (" + columnTypeName + "," + columnType
-          + ") for column " + columnName);
-    }
-    col.setColumnName(columnName);
-    return col;
-  }
-
-  /**
-   * Thrown when invalid data is supplied.
-   * 
-   */
-  public class InvalidDataException extends Exception {
-
-    public InvalidDataException(UnsupportedEncodingException e) {
-      super(e);
-    }
-
-    /**
-     * Serial version UID
-     */
-    private static final long serialVersionUID = -222513235333508756L;
-    
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model.datatype;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.sql.Types;
+
+import com.infobright.etl.model.GenericValueConverter;
+import com.infobright.etl.model.ValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+import com.infobright.logging.EtlLogger;
+
+public abstract class AbstractColumnType {
+
+  /**
+   * Converter used by the default implementations of the primitive
+   * setters.
+   */
+  private static final ValueConverter DEFAULT_CONVERTER = new GenericValueConverter();
+
+  private String columnName;
+  private boolean isNull;
+  private boolean checkValues = false;
+  
+  /**
+   * Sets column data supplied on byteBuffer
+   * @param byteBuffer
+   * @throws InvalidDataException
+   */
+  public abstract void setData(ByteBuffer byteBuffer) throws InvalidDataException;
+
+  /**
+   * Sets column data supplied from string
+   * @param string
+   */
+  public abstract void setData(String string);
+
+  /**
+   * Gets column data as a string
+   * @return string
+   */
+  public abstract String getDataAsString();
+
+  /**
+   * Gets column data and writes it to the supplied byteBuffer
+   * @param byteBuffer
+   */
+  public abstract void getData(ByteBuffer byteBuffer);
+
+  /**
+   * Gets column data in its text load form and writes it to the
+   * supplied byteBuffer, without enclosures or escapes. Throws
+   * BufferOverflowException if the buffer is too small.
+   *
+   * The default implementation copies the characters of
+   * getDataAsString(), so it is only correct for types whose text
+   * is plain ASCII. Types that can write their text without building
+   * a String, or that hold non-ASCII text, override it.
+   *
+   * @param byteBuffer
+   */
+  public void getDataAsText(ByteBuffer byteBuffer) {
+    String str = getDataAsString();
+    int len = str.length();
+    for (int i = 0; i < len; i++) {
+      byteBuffer.put((byte) str.charAt(i));
+    }
+  }
+
+  /**
+   * Setter to mark this column as null.
+   * 
+   * @param b
+   */
+  public void setIsNull(boolean b) {
+    isNull = b;
+    if (b) {
+      zeroOutData();
+    }
+  }
+
+  /**
+   * @return true if this column data is null
+   */
+  public boolean getIsNull() {
+    return isNull;
+  }
+  
+  /**
+   * Sets the column name.
+   * @param columnName
+   */
+  public void setColumnName(String columnName) {
+    this.columnName = columnName;
+  }
+  
+  /**
+   * @return column name
+   */
+  public String getColumnName() {
+    return columnName;
+  }
+  
+  /**
+   * Used to set the data to an init value because even when
+   * a field is null, the binary format loader/unloader
+   * expects there to be dummy data in the record.
+   */
+  protected abstract void zeroOutData();
+
+  /**
+   * Sets column data supplied from kettle Value
+   * @param value
+   * @throws ValueConverterException
+   */
+  public abstract void setData(Object value, ValueConverter meta) throws ValueConverterException;
+
+  /**
+   * Sets column data from a long. Types that hold a primitive value
+   * override this to store it without boxing or conversion; the
+   * default implementation boxes it and calls setData(Object,
+   * ValueConverter) with a GenericValueConverter.
+   *
+   * @param value
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setLong(long value) throws ValueConverterException {
+    setData(Long.valueOf(value), DEFAULT_CONVERTER);
+  }
+
+  /**
+   * Sets column data from a double. Same contract as setLong(long).
+   *
+   * @param value
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setDouble(double value) throws ValueConverterException {
+    setData(Double.valueOf(value), DEFAULT_CONVERTER);
+  }
+
+  /**
+   * Sets column data from a range of bytes. String types expect the
+   * bytes to be encoded in the column character set already; binary
+   * types take them as is. The bytes are copied, so the caller may
+   * reuse the array. The default implementation copies them into a new
+   * array and calls setData(Object, ValueConverter).
+   *
+   * @param value
+   * @param offset
+   * @param length
+   * @throws ValueConverterException if the value does not fit the column
+   */
+  public void setBytes(byte[] value, int offset, int length) throws ValueConverterException {
+    byte[] copy = new byte[length];
+    System.arraycopy(value, offset, copy, 0, length);
+    setData(copy, DEFAULT_CONVERTER);
+  }
+
+  /**
+   * Whether the text of the current value may contain a double quote or
+   * backslash, which must be escaped inside enclosures. Types that know
+   * their value contains neither return false, so that the text format
+   * can skip scanning it.
+   * 
+   * @return true unless the value is known not to need escaping
+   */
+  public boolean mayNeedEscaping() {
+    return true;
+  }
+
+  /**
+   * Enables a cache of the most recently used distinct values of this
+   * column, so that repeated values are not encoded again. Useful for
+   * string columns with few distinct values. Only CHAR, VARCHAR and
+   * TEXT columns have such a cache; other types ignore this.
+   * 
+   * @param size maximum number of values to keep, or 0 for no cache
+   */
+  public void setValueCacheSize(int size) {
+  }
+
+  /**
+   * Gets the hit and miss counts of the value cache of this column, for
+   * types that have one.
+   * 
+   * @return the statistics, or null if the type has no cache
+   */
+  public CacheStats getCacheStats() {
+    return null;
+  }
+
+  /**
+   * Is this a type of data (CHAR, VARCHAR DATE, DATETIME, etc.), that needs
+   * to be enclosed for text load?
+   */
+  public abstract boolean isNeedsEnclosures();
+
+  /**
+   * Should strings and binary types be checked for size before being
+   * passed to the database? (Should be set to TRUE if you support an
+   * error path)
+   * 
+   * @param checkValues
+   */
+  public void setCheckValues(boolean checkValues) {
+    this.checkValues = checkValues;
+  }
+
+  public boolean isCheckValues() {
+    return checkValues;
+  }
+
+  /**
+   * Creates a column of the same type, with the same name and settings,
+   * that holds its own value. The copy starts out not null.
+   *
+   * @return a new column type
+   */
+  public AbstractColumnType copy() {
+    AbstractColumnType col = newInstance();
+    col.setColumnName(columnName);
+    col.setCheckValues(checkValues);
+    return col;
+  }
+
+  /**
+   * Creates an empty column of the same concrete type and size. Used by
+   * copy(); every concrete type overrides it.
+   */
+  protected AbstractColumnType newInstance() {
+    throw new UnsupportedOperationException("copy not supported by " + getClass().getName());
+  }
+
+  /**
+   * Factory method that creates an instance of the column type
+   * appropriate for the JDBC column type supplied.  When new
+   * column types are added, they must also be added to this method.
+   * 
+   * @param columnName
+   * @param columnType @see java.sql.Types
+   * @param columnTypeName 
+   * @param precision
+   * @param scale
+   * @param charset
+   * @param logger
+   * @return a column type
+   */
+  public static AbstractColumnType getInstance(String columnName, int columnType,
+      String columnTypeName, int precision, int scale, Charset charset,
+      EtlLogger logger) {
+    if (logger != null) {
+      String logMsg;
+      if (scale == 0) {
+        logMsg = String.format("Column: %s %s(%d)", columnName, columnTypeName, precision);
+      } else {
+        logMsg = String.format("Column: %s %s(%d,%d)", columnName, columnTypeName, precision, scale);
+      }
+      logger.info(logMsg);
+    }
+    AbstractColumnType col = null;
+    if (columnType == Types.VARCHAR) {
+      col = new VarcharType(precision, charset);
+    } else if (columnType == Types.SMALLINT) {
+      col = new SmallintType();
+    } else if (columnType == Types.INTEGER) {
+      // MEDIUMINT is MySQL-specific and does not have its own sql Type
+      if ("MEDIUMINT".equalsIgnoreCase(columnTypeName)) {
+        col = new MediumintType();
+      } else {
+        col = new IntegerType();
+      }
+    } else if (columnType == Types.TINYINT || columnType == Types.BOOLEAN) {
+      col = new TinyintType();
+    } else if (columnType == Types.BIGINT) {
+      col = new BigintType();
+    } else if (columnType == Types.FLOAT || columnType == Types.REAL) {
+      col = new FloatType();
+    } else if (columnType == Types.DOUBLE) {
+      col = new DoubleType();
+    } else if (columnType == Types.CHAR) {
+      col = new CharType(precision, charset);
+    } else if (columnType == Types.TIMESTAMP) {
+      // TIMESTAMP, DATETIME are treated the same
+      col = new DatetimeType();
+    } else if (columnType == Types.DATE) {
+      if (precision == 4) {
+        col = new YearType(); // show up as precision 4
+      } else { /* precision == 10 */
+        col = new DateIntType();
+      }
+    } else if (columnType == Types.BINARY) {
+      col = new BinaryType(precision);
+    } else if (columnType == Types.VARBINARY) {
+      col = new VarbinaryType(precision);
+    } else if (columnType == Types.LONGVARCHAR) {
+      col = new TextType(precision, charset);
+    } else if (columnType == Types.DECIMAL) {
+      if (scale > DecimalType.MAX_SCALE) {
+        col = new WideDecimalType(precision, scale);
+      } else {
+        col = new DecimalType(precision, scale);
+      }
+    } else if (columnType == Types.TIME) {
+      col = new TimeType();
+    } else {
+      throw new RuntimeException("Unsupported type (" + columnTypeName + "," + columnType
+          + ") for column " + columnName);
+    }
+    col.setColumnName(columnName);
+    return col;
+  }
+
+  /**
+   * Thrown when invalid data is supplied.
+   * 
+   */
+  public class InvalidDataException extends Exception {
+
+    public InvalidDataException(UnsupportedEncodingException e) {
+      super(e);
+    }
+
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = -222513235333508756L;
+    
+  }
+}
@@ -0,0 +1,96 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model.datatype;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes numbers as ASCII digits directly into a ByteBuffer, without
+ * going through a String.
+ * 
+ * Like the relative put methods of ByteBuffer, every method throws
+ * BufferOverflowException (and leaves the position unchanged) if the
+ * digits do not fit.
+ */
+final class AsciiDigits {
+
+  private AsciiDigits() {
+  }
+
+  /**
+   * Writes the decimal representation of a long value, with a leading
+   * '-' if negative. Same output as Long.toString(value).
+   */
+  static void putLong(ByteBuffer byteBuffer, long value) {
+    // work with negative numbers so that Long.MIN_VALUE needs no special case
+    boolean negative = value < 0;
+    long v = negative ? value : -value;
+    int len = digitCount(v) + (negative ? 1 : 0);
+    if (byteBuffer.remaining() < len) {
+      throw new BufferOverflowException();
+    }
+    int start = byteBuffer.position();
+    int p = start + len;
+    do {
+      byteBuffer.put(--p, (byte) ('0' - (v % 10)));
+      v /= 10;
+    } while (v != 0);
+    if (negative) {
+      byteBuffer.put(start, (byte) '-');
+    }
+    byteBuffer.position(start + len);
+  }
+
+  /**
+   * Writes a non-negative value as exactly <code>width</code> digits,
+   * padding with leading zeros. The value must have at most
+   * <code>width</code> digits.
+   */
+  static void putPadded(ByteBuffer byteBuffer, long value, int width) {
+    if (byteBuffer.remaining() < width) {
+      throw new BufferOverflowException();
+    }
+    int start = byteBuffer.position();
+    for (int p = start + width - 1; p >= start; p--) {
+      byteBuffer.put(p, (byte) ('0' + (value % 10)));
+      value /= 10;
+    }
+    byteBuffer.position(start + width);
+  }
+
+  /**
+   * @param v a value <= 0
+   * @return number of decimal digits in v
+   */
+  private static int digitCount(long v) {
+    int n = 1;
+    while (v <= -10) {
+      v /= 10;
+      n++;
+    }
+    return n;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+/**
+ * Hit and miss counts of a column's value cache.
+ * 
+ * @see AbstractColumnType#getCacheStats()
+ */
+public class CacheStats {
+
+  private long hits;
+  private long misses;
+  
+  void hit() {
+    hits++;
+  }
+  
+  void miss() {
+    misses++;
+  }
+  
+  public long getHits() {
+    return hits;
+  }
+  
+  public long getMisses() {
+    return misses;
+  }
+  
+  /**
+   * @return hits as a fraction of all lookups, or 0 if there were none
+   */
+  public double getHitRate() {
+    long total = hits + misses;
+    return (total == 0) ? 0.0 : (double) hits / total;
+  }
+  
+  public void reset() {
+    hits = 0;
+    misses = 0;
+  }
+  
+  @Override
+  public String toString() {
+    return String.format("hits=%d misses=%d hitRate=%.3f", hits, misses, getHitRate());
+  }
+}
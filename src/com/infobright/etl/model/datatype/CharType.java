@@ -1,120 +1,180 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model.datatype;
-
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-
-import com.infobright.etl.model.ValueConverter;
-import com.infobright.etl.model.ValueConverterException;
-
-class CharType extends AbstractColumnType {
-
-  private final int length;
-  private byte[] data;
-  private final Charset charset;
-
-  public CharType(int len, Charset charset) {
-    length = len;
-    this.charset = charset;
-    data = new byte[len];
-  }
-  
-  @Override
-  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
-    byteBuffer.get(data);
-  }
-
-  @Override
-  public String getDataAsString() {
-    try {
-      return new String(data, charset.name());
-    } catch (UnsupportedEncodingException e) {
-      // should not happen, since we started with a valid Charset
-      throw new RuntimeException(e);
-    }
-  }
-
-  @Override
-  public void getData(ByteBuffer byteBuffer) {
-    byteBuffer.put(data);    
-  }
-
-  @Override
-  public void setData(String string) {
-    if (string == null) {
-      setIsNull(true);
-    } else {
-      if (isCheckValues() && string.length() > length) {
-        throw new ValueConverterException("data is too big for this column");
-      }
-      setIsNull(false);
-      byte[] bytes;
-      try {
-        bytes = string.getBytes(charset.name());
-      } catch (UnsupportedEncodingException e) {
-        // should not happen, since we started with a valid Charset
-        throw new RuntimeException(e);
-      }
-      System.arraycopy(bytes, 0, data, 0, bytes.length);
-      padSpacesStartingAt(bytes.length);
-    }
-  }
-
-  private void padSpacesStartingAt(int startIdx) {
-    for (int i = startIdx; i < data.length; i++) {
-      data[i] = ' ';
-    }
-  }
-
-  @Override
-  protected void zeroOutData() {
-    for (int i = 0; i < data.length; i++) {
-      data[i] = 0;
-    }
-  }
-
-  @Override
-  public void setData(Object value, ValueConverter meta)
-      throws ValueConverterException {
-    if (value == null) {
-      setIsNull(true);
-    } else {
-      String val = meta.getString(value);
-      if (val == null) {
-        setIsNull(true);
-      } else {
-        setIsNull(false);
-        setData(val);
-      }
-    }
-  }
-
-  @Override
-  public final boolean isNeedsEnclosures() {
-    return true;
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.etl.model.datatype;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.infobright.etl.model.ValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+
+class CharType extends AbstractColumnType {
+
+  private final int length;
+  private byte[] data;
+  private final Charset charset;
+  private final StringEncoder encoder;
+  // false if the value is known to contain no double quote or backslash
+  private boolean mayNeedEscaping = true;
+  private ValueCache valueCache;
+  private int valueCacheSize = 0;
+
+  public CharType(int len, Charset charset) {
+    length = len;
+    this.charset = charset;
+    this.encoder = new StringEncoder(charset);
+    data = new byte[len];
+  }
+  
+  @Override
+  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
+    byteBuffer.get(data);
+    mayNeedEscaping = true;
+  }
+
+  @Override
+  public String getDataAsString() {
+    try {
+      return new String(data, charset.name());
+    } catch (UnsupportedEncodingException e) {
+      // should not happen, since we started with a valid Charset
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void getData(ByteBuffer byteBuffer) {
+    byteBuffer.put(data);    
+  }
+
+  /**
+   * Writes the already-encoded bytes, which are in the column character
+   * set rather than ASCII.
+   */
+  @Override
+  public void getDataAsText(ByteBuffer byteBuffer) {
+    byteBuffer.put(data);
+  }
+
+  @Override
+  public void setData(String string) {
+    if (string == null) {
+      setIsNull(true);
+    } else {
+      if (isCheckValues() && string.length() > length) {
+        throw new ValueConverterException("data is too big for this column");
+      }
+      setIsNull(false);
+      ValueCache.CachedValue cached = (valueCache == null) ? null : valueCache.get(string);
+      if (cached != null) {
+        // cached with the padding
+        System.arraycopy(cached.bytes, 0, data, 0, data.length);
+        mayNeedEscaping = cached.needsEscaping;
+        return;
+      }
+      int len = encoder.encode(string, data);
+      if (len < 0) {
+        throw new ValueConverterException("data is too big for this column");
+      }
+      padSpacesStartingAt(len);
+      mayNeedEscaping = encoder.isNeedsEscaping();
+      if (valueCache != null) {
+        valueCache.put(string, data, data.length, mayNeedEscaping);
+      }
+    }
+  }
+
+  @Override
+  public void setValueCacheSize(int size) {
+    valueCache = (size > 0) ? new ValueCache(size) : null;
+    valueCacheSize = size;
+  }
+
+  @Override
+  public CacheStats getCacheStats() {
+    return (valueCache == null) ? null : valueCache.getStats();
+  }
+
+  @Override
+  public boolean mayNeedEscaping() {
+    return mayNeedEscaping;
+  }
+
+  /**
+   * @param value bytes already encoded in the column character set
+   */
+  @Override
+  public void setBytes(byte[] value, int offset, int len) throws ValueConverterException {
+    if (len > data.length) {
+      throw new ValueConverterException("data is too big for this column");
+    }
+    setIsNull(false);
+    System.arraycopy(value, offset, data, 0, len);
+    padSpacesStartingAt(len);
+    mayNeedEscaping = true;
+  }
+
+  private void padSpacesStartingAt(int startIdx) {
+    for (int i = startIdx; i < data.length; i++) {
+      data[i] = ' ';
+    }
+  }
+
+  @Override
+  protected void zeroOutData() {
+    for (int i = 0; i < data.length; i++) {
+      data[i] = 0;
+    }
+  }
+
+  @Override
+  public void setData(Object value, ValueConverter meta)
+      throws ValueConverterException {
+    if (value == null) {
+      setIsNull(true);
+    } else {
+      String val = meta.getString(value);
+      if (val == null) {
+        setIsNull(true);
+      } else {
+        setIsNull(false);
+        setData(val);
+      }
+    }
+  }
+
+  @Override
+  protected AbstractColumnType newInstance() {
+    CharType col = new CharType(length, charset);
+    col.setValueCacheSize(valueCacheSize);
+    return col;
+  }
+
+  @Override
+  public final boolean isNeedsEnclosures() {
+    return true;
+  }
+}
@@ -1,114 +1,516 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model.datatype;
-
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
-import com.infobright.etl.model.ValueConverter;
-import com.infobright.etl.model.ValueConverterException;
-
-abstract class DateType extends AbstractColumnType {
-
-  private final SimpleDateFormat format; 
-  private Date zero = new Date(0);
-  private Date data = zero;
-  private byte[] buf;
-  
-  DateType(String datePattern) {
-    this.format = new SimpleDateFormat(datePattern);
-    this.buf = new byte[this.format.toPattern().length()];
-  }
-  
-  @Override
-  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
-    byteBuffer.get(buf);
-    try {
-      if (getIsNull()) {
-        return;  // do nothing because the date data is bogus for this null field
-      }
-      String str = new String(buf, "ISO-8859-1");
-      setData(str);
-    } catch (UnsupportedEncodingException e1) {
-      throw new RuntimeException(e1);
-    }
-  }
-
-  @Override
-  public void getData(ByteBuffer byteBuffer) {
-    byteBuffer.put(getDataAsString().getBytes());    
-  }
-  
-  @Override
-  public String getDataAsString() {
-    return format.format(data);
-  }
-
-  @Override
-  public void setData(String string) {
-    try {
-      data = format.parse(string);
-    } catch (ParseException e2) {
-      throw new RuntimeException(e2);
-    }
-  }
-
-  @Override
-  protected void zeroOutData() {
-    data = zero;
-  }
-
-  public void setData(Date d) {
-    this.data = d;
-  }
-  
-  protected Date getData() {
-    return data;
-  }
-  
-  @Override
-  public void setData(Object value, ValueConverter meta)
-      throws ValueConverterException {
-    if (value == null) {
-      setIsNull(true);
-    } else {
-      Date date = meta.getDate(value);
-      if (date == null) {
-        setIsNull(true);
-      } else {
-        setIsNull(false);
-        setData(date);
-      }
-    }
-  }
-
-  @Override
-  public final boolean isNeedsEnclosures() {
-    return false;
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.infobright.etl.model.GenericValueConverter;
+import com.infobright.etl.model.ValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+
+/**
+ * Base for the date and time types. The value is held as a local day
+ * number (days since 1970-01-01) and a second of that day, and the
+ * text and binary forms are computed from them with integer arithmetic
+ * on the proleptic Gregorian calendar, as MySQL uses.
+ * 
+ * Each subclass writes a contiguous range of the fields year, month,
+ * day, hour, minute and second, in the form
+ * <code>yyyy-MM-dd HH:mm:ss</code>.
+ * 
+ * Values usually arrive in time order, so the fields and encoded text
+ * of the last day seen are cached, together with the time zone offset
+ * for that day. Only the time of day is then computed for values on
+ * the same day.
+ */
+abstract class DateType extends AbstractColumnType {
+
+  static final int YEAR = 0;
+  static final int MONTH = 1;
+  static final int DAY = 2;
+  static final int HOUR = 3;
+  static final int MINUTE = 4;
+  static final int SECOND = 5;
+  
+  private static final byte[] SEPARATORS = { 0, '-', '-', ' ', ':', ':' };
+  private static final int[] WIDTHS = { 4, 2, 2, 2, 2, 2 };
+  
+  private static final ValueConverter GENERIC_CONVERTER = new GenericValueConverter();
+
+  private static final int SECONDS_PER_DAY = 86400;
+  private static final long MILLIS_PER_DAY = 86400000L;
+  
+  private final int firstField;
+  private final int fieldCount;
+  private final byte[] buf;
+
+  // Dates and instants are shown in the default time zone of when the
+  // column was created, as SimpleDateFormat did
+  private final TimeZone timeZone = TimeZone.getDefault();
+  
+  // the current day, which is either lastDay or zeroDay
+  private Day day;
+  private int secondOfDay;
+  
+  private final Day lastDay = new Day();
+  private final CacheStats cacheStats = new CacheStats();
+  
+  // the day and time of the epoch, used for null values
+  private Day zeroDay;
+  private int zeroSecond;
+  
+  // the UTC range [offsetStart, offsetEnd) known to have offset
+  private long offsetStart;
+  private long offsetEnd;
+  private int offset;
+  
+  /**
+   * The fields of a day, and its encoded forms.
+   */
+  private static final class Day {
+    long epochDay = Long.MIN_VALUE;
+    int year;
+    int month;
+    int day;
+    int dateInt;
+    // yyyy-MM-dd, or null if the year does not have 4 digits
+    byte[] text;
+  }
+  
+  /**
+   * The java.time classes that are converted directly, and the methods
+   * that read them, looked up once. All null on VMs without java.time.
+   */
+  private static final class JavaTime {
+    static final Class<?> LOCAL_DATE = load("java.time.LocalDate");
+    static final Class<?> LOCAL_TIME = load("java.time.LocalTime");
+    static final Class<?> LOCAL_DATE_TIME = load("java.time.LocalDateTime");
+    static final Class<?> INSTANT = load("java.time.Instant");
+    static final Class<?> OFFSET_DATE_TIME = load("java.time.OffsetDateTime");
+    static final Class<?> ZONED_DATE_TIME = load("java.time.ZonedDateTime");
+    
+    static final Method TO_EPOCH_DAY = method(LOCAL_DATE, "toEpochDay");
+    static final Method TO_SECOND_OF_DAY = method(LOCAL_TIME, "toSecondOfDay");
+    static final Method TO_LOCAL_DATE = method(LOCAL_DATE_TIME, "toLocalDate");
+    static final Method TO_LOCAL_TIME = method(LOCAL_DATE_TIME, "toLocalTime");
+    static final Method TO_EPOCH_MILLI = method(INSTANT, "toEpochMilli");
+    static final Method OFFSET_TO_EPOCH_SECOND = method(OFFSET_DATE_TIME, "toEpochSecond");
+    static final Method OFFSET_GET_NANO = method(OFFSET_DATE_TIME, "getNano");
+    static final Method ZONED_TO_EPOCH_SECOND = method(ZONED_DATE_TIME, "toEpochSecond");
+    static final Method ZONED_GET_NANO = method(ZONED_DATE_TIME, "getNano");
+    
+    private static Class<?> load(String name) {
+      try {
+        return Class.forName(name);
+      } catch (ClassNotFoundException e) {
+        return null;
+      }
+    }
+    
+    private static Method method(Class<?> cls, String name) {
+      if (cls == null) {
+        return null;
+      }
+      try {
+        return cls.getMethod(name);
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+  }
+  
+  /**
+   * @param firstField the first field written, e.g. YEAR
+   * @param fieldCount the number of fields written
+   */
+  DateType(int firstField, int fieldCount) {
+    this.firstField = firstField;
+    this.fieldCount = fieldCount;
+    int len = -1;
+    for (int f = firstField; f < firstField + fieldCount; f++) {
+      len += WIDTHS[f] + 1;
+    }
+    this.buf = new byte[len];
+    zeroOutData();
+  }
+  
+  @Override
+  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
+    byteBuffer.get(buf);
+    try {
+      if (getIsNull()) {
+        return;  // do nothing because the date data is bogus for this null field
+      }
+      String str = new String(buf, "ISO-8859-1");
+      setData(str);
+    } catch (UnsupportedEncodingException e1) {
+      throw new RuntimeException(e1);
+    }
+  }
+
+  @Override
+  public void getData(ByteBuffer byteBuffer) {
+    getDataAsText(byteBuffer);
+  }
+  
+  @Override
+  public String getDataAsString() {
+    ByteBuffer text = ByteBuffer.allocate(32);
+    getDataAsText(text);
+    StringBuilder str = new StringBuilder(text.position());
+    for (int i = 0; i < text.position(); i++) {
+      str.append((char) text.get(i));
+    }
+    return str.toString();
+  }
+
+  @Override
+  public void getDataAsText(ByteBuffer byteBuffer) {
+    int f = firstField;
+    if (f == YEAR && fieldCount >= 3 && day.text != null) {
+      byteBuffer.put(day.text);
+      f = HOUR;
+    }
+    for (; f < firstField + fieldCount; f++) {
+      if (f != firstField) {
+        byteBuffer.put(SEPARATORS[f]);
+      }
+      int value = getField(f);
+      if (value >= 0 && value < 10000) {
+        AsciiDigits.putPadded(byteBuffer, value, WIDTHS[f]);
+      } else {
+        // a year outside 0-9999
+        AsciiDigits.putLong(byteBuffer, value);
+      }
+    }
+  }
+
+  private int getField(int field) {
+    switch (field) {
+    case YEAR:
+      return day.year;
+    case MONTH:
+      return day.month;
+    case DAY:
+      return day.day;
+    case HOUR:
+      return secondOfDay / 3600;
+    case MINUTE:
+      return (secondOfDay / 60) % 60;
+    default:
+      return secondOfDay % 60;
+    }
+  }
+  
+  protected int getYear() {
+    return day.year;
+  }
+
+  /**
+   * @return the Teradata date int, (year - 1900) * 10000 + month * 100 + day
+   */
+  protected int getDateInt() {
+    return day.dateInt;
+  }
+
+  /**
+   * @return hits and misses of the last day cache
+   */
+  @Override
+  public CacheStats getCacheStats() {
+    return cacheStats;
+  }
+  
+  /**
+   * Parses the fields written by this type. Any non-digit character
+   * separates fields, and out of range values roll over into the next
+   * field, as with a lenient SimpleDateFormat.
+   */
+  @Override
+  public void setData(String string) {
+    try {
+      parse(string, firstField, fieldCount, true);
+    } catch (ParseException e2) {
+      throw new RuntimeException(e2);
+    }
+  }
+
+  /**
+   * Sets the value from <code>count</code> digit groups of the string,
+   * for the fields starting at <code>first</code>. Fields that are not
+   * given are taken from 1970-01-01 00:00:00.
+   * 
+   * @param strict whether all <code>count</code> fields must be present
+   */
+  private void parse(String string, int first, int count, boolean strict) throws ParseException {
+    int[] fields = { 1970, 1, 1, 0, 0, 0 };
+    int len = string.length();
+    int pos = 0;
+    int f = 0;
+    while (f < count) {
+      while (pos < len && !isDigit(string.charAt(pos))) {
+        pos++;
+      }
+      int start = pos;
+      int value = 0;
+      while (pos < len && isDigit(string.charAt(pos)) && pos - start < 9) {
+        value = value * 10 + (string.charAt(pos++) - '0');
+      }
+      if (pos == start) {
+        break;
+      }
+      fields[first + f++] = value;
+    }
+    if (f == 0 || (strict && f < count)) {
+      throw new ParseException("Unparseable date: \"" + string + "\"", pos);
+    }
+    setFields(fields[YEAR], fields[MONTH], fields[DAY],
+        fields[HOUR] * 3600L + fields[MINUTE] * 60L + fields[SECOND]);
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+  
+  /**
+   * Sets the value from local date and time fields. Out of range months,
+   * days and seconds roll over.
+   * 
+   * @param month 1-12
+   * @param day 1-31
+   * @param seconds seconds since the start of the day
+   */
+  protected final void setFields(int year, int month, int day, long seconds) {
+    long months = year * 12L + (month - 1);
+    long y = floorDiv(months, 12);
+    long days = daysFromCivil(y, (int) (months - y * 12) + 1) + (day - 1);
+    long dayOffset = floorDiv(seconds, SECONDS_PER_DAY);
+    setLocal(days + dayOffset, (int) (seconds - dayOffset * SECONDS_PER_DAY));
+  }
+
+  /**
+   * Sets the value from milliseconds since the epoch, shown in the
+   * default time zone.
+   */
+  protected final void setMillis(long millis) {
+    if (millis < offsetStart || millis >= offsetEnd) {
+      // cache the offset for the whole UTC day if it does not change
+      // during it
+      long dayStart = floorDiv(millis, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+      offset = timeZone.getOffset(millis);
+      if (timeZone.getOffset(dayStart) == offset
+          && timeZone.getOffset(dayStart + MILLIS_PER_DAY - 1) == offset) {
+        offsetStart = dayStart;
+        offsetEnd = dayStart + MILLIS_PER_DAY;
+      } else {
+        offsetStart = offsetEnd = 0;
+      }
+    }
+    long local = millis + offset;
+    long days = floorDiv(local, MILLIS_PER_DAY);
+    setLocal(days, (int) ((local - days * MILLIS_PER_DAY) / 1000));
+  }
+
+  private void setLocal(long epochDay, int secondOfDay) {
+    this.secondOfDay = secondOfDay;
+    if (epochDay == lastDay.epochDay) {
+      cacheStats.hit();
+    } else {
+      cacheStats.miss();
+      computeDay(lastDay, epochDay);
+    }
+    this.day = lastDay;
+  }
+
+  private static void computeDay(Day d, long epochDay) {
+    d.epochDay = epochDay;
+    // civil-from-days: March-based 400 year eras, so that leap days fall
+    // at the end of each year
+    long z = epochDay + 719468;
+    long era = floorDiv(z, 146097);
+    long doe = z - era * 146097;
+    long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+    long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    long mp = (5 * doy + 2) / 153;
+    d.day = (int) (doy - (153 * mp + 2) / 5 + 1);
+    d.month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    d.year = (int) (yoe + era * 400 + (d.month <= 2 ? 1 : 0));
+    d.dateInt = (d.year - 1900) * 10000 + d.month * 100 + d.day;
+    if (d.year >= 0 && d.year < 10000) {
+      if (d.text == null) {
+        d.text = new byte[10];
+      }
+      ByteBuffer text = ByteBuffer.wrap(d.text);
+      AsciiDigits.putPadded(text, d.year, 4);
+      text.put((byte) '-');
+      AsciiDigits.putPadded(text, d.month, 2);
+      text.put((byte) '-');
+      AsciiDigits.putPadded(text, d.day, 2);
+    } else {
+      d.text = null;
+    }
+  }
+  
+  /**
+   * @return days since 1970-01-01 of the first of the given month
+   */
+  private static long daysFromCivil(long year, int month) {
+    long y = (month <= 2) ? year - 1 : year;
+    long era = floorDiv(y, 400);
+    long yoe = y - era * 400;
+    long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+    long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
+  }
+  
+  private static long floorDiv(long x, long y) {
+    long q = x / y;
+    return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+  }
+
+  /**
+   * Null values hold the epoch, without disturbing the cache.
+   */
+  @Override
+  protected void zeroOutData() {
+    if (zeroDay == null) {
+      long local = timeZone.getOffset(0L);
+      long days = floorDiv(local, MILLIS_PER_DAY);
+      zeroDay = new Day();
+      computeDay(zeroDay, days);
+      zeroSecond = (int) ((local - days * MILLIS_PER_DAY) / 1000);
+    }
+    day = zeroDay;
+    secondOfDay = zeroSecond;
+  }
+
+  public void setData(Date d) {
+    setMillis(d.getTime());
+  }
+
+  /**
+   * Sets the value from milliseconds since the epoch.
+   */
+  @Override
+  public void setLong(long value) throws ValueConverterException {
+    setIsNull(false);
+    setMillis(value);
+  }
+  
+  /**
+   * With a GenericValueConverter (or none), Dates and the java.time types
+   * are converted directly; anything else, and every value given with
+   * another converter, goes through getDate(). Numbers are milliseconds
+   * since the epoch, for YEAR columns too.
+   */
+  @Override
+  public void setData(Object value, ValueConverter meta)
+      throws ValueConverterException {
+    if (value == null) {
+      setIsNull(true);
+    } else if (meta != null && meta.getClass() != GenericValueConverter.class) {
+      setDate(meta.getDate(value));
+    } else if (value instanceof Date) {
+      setIsNull(false);
+      setMillis(((Date) value).getTime());
+    } else if (value.getClass().getName().startsWith("java.time.")) {
+      setIsNull(false);
+      setTemporal(value);
+    } else {
+      setDate(GENERIC_CONVERTER.getDate(value));
+    }
+  }
+
+  private void setDate(Date date) {
+    if (date == null) {
+      setIsNull(true);
+    } else {
+      setIsNull(false);
+      setMillis(date.getTime());
+    }
+  }
+
+  /**
+   * LocalDate, LocalTime and LocalDateTime are taken as local fields,
+   * from their epoch day and second of day. Instant, OffsetDateTime and
+   * ZonedDateTime are taken as instants and shown in the default time
+   * zone, like Dates. This uses only reflection, so the class still runs
+   * on VMs without java.time.
+   */
+  private void setTemporal(Object value) throws ValueConverterException {
+    Class<?> cls = value.getClass();
+    try {
+      if (cls == JavaTime.LOCAL_DATE_TIME) {
+        Object date = JavaTime.TO_LOCAL_DATE.invoke(value);
+        Object time = JavaTime.TO_LOCAL_TIME.invoke(value);
+        setLocal(((Long) JavaTime.TO_EPOCH_DAY.invoke(date)).longValue(),
+            ((Integer) JavaTime.TO_SECOND_OF_DAY.invoke(time)).intValue());
+      } else if (cls == JavaTime.LOCAL_DATE) {
+        setLocal(((Long) JavaTime.TO_EPOCH_DAY.invoke(value)).longValue(), 0);
+      } else if (cls == JavaTime.LOCAL_TIME) {
+        setLocal(0L, ((Integer) JavaTime.TO_SECOND_OF_DAY.invoke(value)).intValue());
+      } else if (cls == JavaTime.INSTANT) {
+        setMillis(((Long) JavaTime.TO_EPOCH_MILLI.invoke(value)).longValue());
+      } else if (cls == JavaTime.OFFSET_DATE_TIME) {
+        setInstant(JavaTime.OFFSET_TO_EPOCH_SECOND.invoke(value),
+            JavaTime.OFFSET_GET_NANO.invoke(value));
+      } else if (cls == JavaTime.ZONED_DATE_TIME) {
+        setInstant(JavaTime.ZONED_TO_EPOCH_SECOND.invoke(value),
+            JavaTime.ZONED_GET_NANO.invoke(value));
+      } else {
+        throw notConvertible(value);
+      }
+    } catch (IllegalAccessException e) {
+      throw notConvertible(value);
+    } catch (InvocationTargetException e) {
+      throw notConvertible(value);
+    }
+  }
+
+  /**
+   * @param epochSecond a Long, seconds since the epoch
+   * @param nano an Integer, nanoseconds within the second
+   */
+  private void setInstant(Object epochSecond, Object nano) {
+    setMillis(((Long) epochSecond).longValue() * 1000 + ((Integer) nano).intValue() / 1000000);
+  }
+
+  private static ValueConverterException notConvertible(Object value) {
+    return new ValueConverterException("value \"" + value.toString() + "\" of type "
+        + value.getClass().getName() + " is not convertible to Date");
+  }
+
+  @Override
+  public final boolean isNeedsEnclosures() {
+    return false;
+  }
+}
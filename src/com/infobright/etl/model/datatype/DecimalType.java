@@ -1,137 +1,333 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.etl.model.datatype;
-
-import java.math.BigDecimal;
-import java.nio.ByteBuffer;
-
-import com.infobright.etl.model.ValueConverter;
-import com.infobright.etl.model.ValueConverterException;
-
-class DecimalType extends AbstractColumnType {
-
-  private static final BigDecimal TEN = new BigDecimal(10);
-  
-  private final BigDecimal maxValue;
-  private final BigDecimal minValue;
-  
-  private final int precision;
-  
-  // stored in premultiplied form (Eg. if scale=2, "1.23" stored as "123")
-  private BigDecimal data;
-
-  private final BigDecimal multiplier;
-  
-  DecimalType(int precision, int scale) {
-    // TODO make sure precision is between 1 and 18
-    this.precision = precision;
-    this.multiplier = TEN.pow(scale);
-    this.maxValue = TEN.pow(precision).subtract(BigDecimal.ONE);
-    this.minValue = maxValue.negate();
-    this.data = BigDecimal.ZERO;
-  }
-  
-  @Override
-  public String getDataAsString() {
-    return data.divide(multiplier).toString();
-  }
-
-  @Override
-  public void getData(ByteBuffer byteBuffer) {
-    if (precision < 3) { /* byte: 1 byte */
-      byteBuffer.put(data.byteValue());
-    } else if (precision < 5) { /* short: 2 bytes */
-      byteBuffer.putShort(data.shortValue());
-    } else if (precision < 10) { /* int: 4 bytes */
-      byteBuffer.putInt(data.intValue());
-    } else { /* long: 8 bytes */
-      byteBuffer.putLong(data.longValue());
-    }
-  }
-
-  /**
-   * @param data the premultiplied value
-   */
-  private void setData(BigDecimal data) {
-    // make sure the data doesn't have more digits than the precision
-    if (data.compareTo(maxValue) > 0 || data.compareTo(minValue) < 0) {
-      throw new ValueConverterException("value too large for column");
-    }
-    this.data = data;
-  }
-  
-  @Override
-  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
-    BigDecimal tData;
-    if (precision < 3) { /* byte: 1 byte */
-      tData = new BigDecimal(byteBuffer.get());
-    } else if (precision < 5) { /* short: 2 bytes */
-      tData = new BigDecimal(byteBuffer.getShort());
-    } else if (precision < 10){  /* int: 4 bytes */
-      tData = new BigDecimal(byteBuffer.getInt());
-    } else { /* long: 8 bytes */
-      tData = new BigDecimal(byteBuffer.getLong());
-    }
-    setData(tData);
-  }
-  
-  /**
-   * @throws ValueConverterException if value has too many digits for the
-   * precision
-   */
-  @Override
-  public void setData(String string) {
-    setData(new BigDecimal(string).multiply(multiplier));
-  }
-
-  /**
-   * @throws ValueConverterException if value has too many digits for the
-   * precision
-   */
-  @Override
-  public void setData(Object value, ValueConverter meta) {
-    if (value == null) {
-      setIsNull(true);
-    } else {
-      BigDecimal val = meta.getBigNumber(value);
-      if (val == null) {
-        setIsNull(true);
-      } else {
-        setIsNull(false);
-        setData(val.multiply(multiplier));
-      }
-    }
-  }
-
-  @Override
-  protected void zeroOutData() {
-    data = BigDecimal.ZERO;
-  }
-  
-  @Override
-  public final boolean isNeedsEnclosures() {
-    return false;
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+import com.infobright.etl.model.GenericValueConverter;
+import com.infobright.etl.model.ValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+
+/**
+ * DECIMAL(precision, scale), held as a long in premultiplied form
+ * (Eg. if scale=2, "1.23" is stored as 123). The binary format never
+ * has more than 8 bytes for a decimal, so a long always suffices.
+ * 
+ * Values with more fractional digits than the scale are rounded half
+ * up, as the server would do.
+ */
+class DecimalType extends AbstractColumnType {
+
+  /** Largest scale whose premultiplied values fit a long. */
+  static final int MAX_SCALE = 18;
+
+  private static final ValueConverter GENERIC_CONVERTER = new GenericValueConverter();
+  
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+  static {
+    POWERS_OF_TEN[0] = 1L;
+    for (int i = 1; i <= MAX_SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+  
+  private final long maxValue;
+  
+  private final int precision;
+  private final int scale;
+  
+  // stored in premultiplied form (Eg. if scale=2, "1.23" stored as "123")
+  private long data;
+
+  private final long multiplier;
+
+  // largest unscaled value that can be multiplied without exceeding maxValue
+  private final long maxUnscaled;
+  
+  DecimalType(int precision, int scale) {
+    if (scale < 0 || scale > MAX_SCALE) {
+      throw new IllegalArgumentException("scale of decimal must be between 0 and " + MAX_SCALE);
+    }
+    this.precision = precision;
+    this.scale = scale;
+    this.multiplier = POWERS_OF_TEN[scale];
+    // a precision over 18 can only be held up to the range of a long
+    this.maxValue = (precision > MAX_SCALE) ? Long.MAX_VALUE : POWERS_OF_TEN[precision] - 1;
+    this.maxUnscaled = maxValue / multiplier;
+    this.data = 0L;
+  }
+  
+  @Override
+  public String getDataAsString() {
+    if (scale == 0) {
+      return Long.toString(data);
+    }
+    long abs = Math.abs(data);
+    String frac = Long.toString(abs % multiplier);
+    StringBuilder buf = new StringBuilder(24);
+    if (data < 0) {
+      buf.append('-');
+    }
+    buf.append(abs / multiplier).append('.');
+    for (int i = frac.length(); i < scale; i++) {
+      buf.append('0');
+    }
+    return buf.append(frac).toString();
+  }
+
+  @Override
+  public void getDataAsText(ByteBuffer byteBuffer) {
+    if (scale == 0) {
+      AsciiDigits.putLong(byteBuffer, data);
+      return;
+    }
+    // |data| <= maxValue, so negating cannot overflow
+    long abs = data;
+    if (data < 0) {
+      byteBuffer.put((byte) '-');
+      abs = -data;
+    }
+    AsciiDigits.putLong(byteBuffer, abs / multiplier);
+    byteBuffer.put((byte) '.');
+    AsciiDigits.putPadded(byteBuffer, abs % multiplier, scale);
+  }
+
+  @Override
+  public void getData(ByteBuffer byteBuffer) {
+    if (precision < 3) { /* byte: 1 byte */
+      byteBuffer.put((byte) data);
+    } else if (precision < 5) { /* short: 2 bytes */
+      byteBuffer.putShort((short) data);
+    } else if (precision < 10) { /* int: 4 bytes */
+      byteBuffer.putInt((int) data);
+    } else { /* long: 8 bytes */
+      byteBuffer.putLong(data);
+    }
+  }
+
+  /**
+   * @param value the premultiplied value
+   */
+  private void setScaled(long value) {
+    // make sure the data doesn't have more digits than the precision
+    if (value > maxValue || value < -maxValue) {
+      throw new ValueConverterException("value too large for column");
+    }
+    setIsNull(false);
+    this.data = value;
+  }
+  
+  @Override
+  public void setData(ByteBuffer byteBuffer) throws InvalidDataException {
+    long tData;
+    if (precision < 3) { /* byte: 1 byte */
+      tData = byteBuffer.get();
+    } else if (precision < 5) { /* short: 2 bytes */
+      tData = byteBuffer.getShort();
+    } else if (precision < 10){  /* int: 4 bytes */
+      tData = byteBuffer.getInt();
+    } else { /* long: 8 bytes */
+      tData = byteBuffer.getLong();
+    }
+    setScaled(tData);
+  }
+  
+  /**
+   * @throws ValueConverterException if value has too many digits for the
+   * precision
+   * @throws NumberFormatException if the string is not a number
+   */
+  @Override
+  public void setData(String string) {
+    setScaled(parse(string));
+  }
+
+  /**
+   * With a GenericValueConverter (or none), Long, Integer, Double, Float
+   * and String values are converted directly; anything else, and every
+   * value given with another converter, goes through getBigNumber().
+   * 
+   * @throws ValueConverterException if value has too many digits for the
+   * precision
+   */
+  @Override
+  public void setData(Object value, ValueConverter meta) {
+    if (value == null) {
+      setIsNull(true);
+    } else if (meta != null && meta.getClass() != GenericValueConverter.class) {
+      // a custom converter decides what the value means
+      setBigNumber(meta.getBigNumber(value));
+    } else if (value instanceof Long || value instanceof Integer
+        || value instanceof Short || value instanceof Byte) {
+      setLong(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      setDouble(((Number) value).doubleValue());
+    } else if (value instanceof String) {
+      try {
+        setScaled(parse((String) value));
+      } catch (NumberFormatException e) {
+        throw new ValueConverterException("value \"" + value + "\" of type "
+            + value.getClass().getName() + " is not convertible to BigDecimal");
+      }
+    } else {
+      setBigNumber(GENERIC_CONVERTER.getBigNumber(value));
+    }
+  }
+
+  private void setBigNumber(BigDecimal val) {
+    if (val == null) {
+      setIsNull(true);
+    } else {
+      setScaled(toScaled(val));
+    }
+  }
+
+  /**
+   * @throws ValueConverterException if value has too many digits for the
+   * precision
+   */
+  @Override
+  public void setLong(long value) {
+    if (value > maxUnscaled || value < -maxUnscaled) {
+      throw new ValueConverterException("value too large for column");
+    }
+    setScaled(value * multiplier);
+  }
+
+  /**
+   * @throws ValueConverterException if value has too many digits for the
+   * precision, or is not a number
+   */
+  @Override
+  public void setDouble(double value) {
+    double scaled = value * multiplier;
+    if (Double.isNaN(scaled) || Math.abs(scaled) >= 9.0E18) {
+      if (Double.isNaN(scaled) || Double.isInfinite(scaled)) {
+        throw new ValueConverterException("value " + value + " is not convertible to BigDecimal");
+      }
+      throw new ValueConverterException("value too large for column");
+    }
+    long rounded = (long) scaled;
+    double frac = scaled - rounded;
+    if (frac >= 0.5) {
+      rounded++;
+    } else if (frac <= -0.5) {
+      rounded--;
+    }
+    setScaled(rounded);
+  }
+
+  /**
+   * @return the premultiplied form of value, rounded half up
+   */
+  private long toScaled(BigDecimal value) {
+    BigDecimal scaled = value.movePointRight(scale).setScale(0, RoundingMode.HALF_UP);
+    if (scaled.unscaledValue().bitLength() > 63) {
+      throw new ValueConverterException("value too large for column");
+    }
+    return scaled.longValue();
+  }
+
+  /**
+   * Parses a plain decimal string ([+-]digits[.digits]) straight into
+   * the premultiplied form. Anything else, such as exponents, is left
+   * to BigDecimal.
+   * 
+   * @return the premultiplied value
+   * @throws NumberFormatException if the string is not a number
+   */
+  private long parse(String string) {
+    int len = string.length();
+    int i = 0;
+    boolean negative = false;
+    if (len > 0 && (string.charAt(0) == '-' || string.charAt(0) == '+')) {
+      negative = string.charAt(0) == '-';
+      i++;
+    }
+    long acc = 0L;
+    int digits = 0;
+    int fracDigits = -1;  // -1 until the decimal point is seen
+    boolean roundUp = false;
+    for (; i < len; i++) {
+      char c = string.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits++;
+        if (fracDigits < 0 || fracDigits < scale) {
+          int d = c - '0';
+          if (acc > (maxValue - d) / 10) {
+            throw new ValueConverterException("value too large for column");
+          }
+          acc = acc * 10 + d;
+          if (fracDigits >= 0) {
+            fracDigits++;
+          }
+        } else if (fracDigits == scale) {
+          // first digit past the scale decides the rounding
+          roundUp = (c >= '5');
+          fracDigits++;
+        }
+      } else if (c == '.' && fracDigits < 0) {
+        fracDigits = 0;
+      } else {
+        return toScaled(new BigDecimal(string));
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException("not a number: \"" + string + "\"");
+    }
+    if (fracDigits < 0) {
+      fracDigits = 0;
+    }
+    if (fracDigits < scale) {
+      long mult = POWERS_OF_TEN[scale - fracDigits];
+      if (acc > maxValue / mult) {
+        throw new ValueConverterException("value too large for column");
+      }
+      acc *= mult;
+    }
+    if (roundUp) {
+      acc++;
+    }
+    return negative ? -acc : acc;
+  }
+
+  @Override
+  protected void zeroOutData() {
+    data = 0L;
+  }
+  
+  @Override
+  protected AbstractColumnType newInstance() {
+    return new DecimalType(precision, scale);
+  }
+
+  @Override
+  public final boolean isNeedsEnclosures() {
+    return false;
+  }
+}
@@ -0,0 +1,360 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import com.infobright.etl.model.ValueConverterException;
+
+/**
+ * The columns of a table, compiled once for encoding rows. The concrete
+ * type of each column is resolved up front into a kind code, and the
+ * encode methods switch on it and call the concrete class. Each call
+ * site then only ever sees one class and can be inlined, instead of a
+ * single virtual call site shared by every column of the row.
+ */
+public final class SchemaPlan {
+
+  private static final byte OTHER = 0;
+  private static final byte BIGINT = 1;
+  private static final byte INTEGER = 2;
+  private static final byte MEDIUMINT = 3;
+  private static final byte SMALLINT = 4;
+  private static final byte TINYINT = 5;
+  private static final byte DOUBLE = 6;
+  private static final byte FLOAT = 7;
+  private static final byte DECIMAL = 8;
+  private static final byte VARCHAR = 9;
+  private static final byte CHAR = 10;
+  private static final byte BINARY = 11;
+  private static final byte VARBINARY = 12;
+  private static final byte DATETIME = 13;
+  private static final byte DATEINT = 14;
+  private static final byte YEAR = 15;
+  private static final byte TIME = 16;
+  
+  private final AbstractColumnType[] columns;
+  private final byte[] kinds;
+  private final boolean[] needsEnclosures;
+  
+  public SchemaPlan(List<AbstractColumnType> columnList) {
+    int n = columnList.size();
+    columns = columnList.toArray(new AbstractColumnType[n]);
+    kinds = new byte[n];
+    needsEnclosures = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      kinds[i] = kindOf(columns[i]);
+      needsEnclosures[i] = columns[i].isNeedsEnclosures();
+    }
+  }
+
+  private static byte kindOf(AbstractColumnType col) {
+    Class<?> cls = col.getClass();
+    if (cls == BigintType.class) {
+      return BIGINT;
+    } else if (cls == IntegerType.class) {
+      return INTEGER;
+    } else if (cls == MediumintType.class) {
+      return MEDIUMINT;
+    } else if (cls == SmallintType.class) {
+      return SMALLINT;
+    } else if (cls == TinyintType.class) {
+      return TINYINT;
+    } else if (cls == DoubleType.class) {
+      return DOUBLE;
+    } else if (cls == FloatType.class) {
+      return FLOAT;
+    } else if (cls == DecimalType.class) {
+      return DECIMAL;
+    } else if (cls == VarcharType.class || cls == TextType.class) {
+      return VARCHAR;
+    } else if (cls == CharType.class) {
+      return CHAR;
+    } else if (cls == BinaryType.class) {
+      return BINARY;
+    } else if (cls == VarbinaryType.class) {
+      return VARBINARY;
+    } else if (cls == DatetimeType.class) {
+      return DATETIME;
+    } else if (cls == TimeType.class) {
+      return TIME;
+    } else if (cls == DateIntType.class) {
+      return DATEINT;
+    } else if (cls == YearType.class) {
+      return YEAR;
+    }
+    return OTHER;
+  }
+  
+  /**
+   * @return number of columns
+   */
+  public int size() {
+    return columns.length;
+  }
+  
+  public AbstractColumnType getColumn(int colidx) {
+    return columns[colidx];
+  }
+  
+  public boolean getIsNull(int colidx) {
+    return columns[colidx].getIsNull();
+  }
+  
+  public boolean isNeedsEnclosures(int colidx) {
+    return needsEnclosures[colidx];
+  }
+  
+  public boolean mayNeedEscaping(int colidx) {
+    return columns[colidx].mayNeedEscaping();
+  }
+  
+  /**
+   * Same as getColumn(colidx).getDataAsText(byteBuffer).
+   */
+  public void getDataAsText(int colidx, ByteBuffer byteBuffer) {
+    AbstractColumnType col = columns[colidx];
+    switch (kinds[colidx]) {
+    case BIGINT:
+      ((BigintType) col).getDataAsText(byteBuffer);
+      break;
+    case INTEGER:
+      ((IntegerType) col).getDataAsText(byteBuffer);
+      break;
+    case MEDIUMINT:
+      ((MediumintType) col).getDataAsText(byteBuffer);
+      break;
+    case SMALLINT:
+      ((SmallintType) col).getDataAsText(byteBuffer);
+      break;
+    case TINYINT:
+      ((TinyintType) col).getDataAsText(byteBuffer);
+      break;
+    case DOUBLE:
+      ((DoubleType) col).getDataAsText(byteBuffer);
+      break;
+    case FLOAT:
+      ((FloatType) col).getDataAsText(byteBuffer);
+      break;
+    case DECIMAL:
+      ((DecimalType) col).getDataAsText(byteBuffer);
+      break;
+    case VARCHAR:
+      ((VarcharType) col).getDataAsText(byteBuffer);
+      break;
+    case CHAR:
+      ((CharType) col).getDataAsText(byteBuffer);
+      break;
+    case DATETIME:
+      ((DatetimeType) col).getDataAsText(byteBuffer);
+      break;
+    case TIME:
+      ((TimeType) col).getDataAsText(byteBuffer);
+      break;
+    case DATEINT:
+      ((DateIntType) col).getDataAsText(byteBuffer);
+      break;
+    case YEAR:
+      ((YearType) col).getDataAsText(byteBuffer);
+      break;
+    default:
+      col.getDataAsText(byteBuffer);
+    }
+  }
+
+  /**
+   * Same as getColumn(colidx).getData(byteBuffer).
+   */
+  public void getData(int colidx, ByteBuffer byteBuffer) {
+    AbstractColumnType col = columns[colidx];
+    switch (kinds[colidx]) {
+    case BIGINT:
+      ((BigintType) col).getData(byteBuffer);
+      break;
+    case INTEGER:
+      ((IntegerType) col).getData(byteBuffer);
+      break;
+    case MEDIUMINT:
+      ((MediumintType) col).getData(byteBuffer);
+      break;
+    case SMALLINT:
+      ((SmallintType) col).getData(byteBuffer);
+      break;
+    case TINYINT:
+      ((TinyintType) col).getData(byteBuffer);
+      break;
+    case DOUBLE:
+      ((DoubleType) col).getData(byteBuffer);
+      break;
+    case FLOAT:
+      ((FloatType) col).getData(byteBuffer);
+      break;
+    case DECIMAL:
+      ((DecimalType) col).getData(byteBuffer);
+      break;
+    case VARCHAR:
+      ((VarcharType) col).getData(byteBuffer);
+      break;
+    case CHAR:
+      ((CharType) col).getData(byteBuffer);
+      break;
+    case BINARY:
+      ((BinaryType) col).getData(byteBuffer);
+      break;
+    case VARBINARY:
+      ((VarbinaryType) col).getData(byteBuffer);
+      break;
+    case DATETIME:
+      ((DatetimeType) col).getData(byteBuffer);
+      break;
+    case TIME:
+      ((TimeType) col).getData(byteBuffer);
+      break;
+    case DATEINT:
+      ((DateIntType) col).getData(byteBuffer);
+      break;
+    case YEAR:
+      ((YearType) col).getData(byteBuffer);
+      break;
+    default:
+      col.getData(byteBuffer);
+    }
+  }
+
+  /**
+   * Whether putLong() and putDouble() can encode values of the column:
+   * true for the integer types, DOUBLE and FLOAT.
+   */
+  public boolean isNumeric(int colidx) {
+    byte kind = kinds[colidx];
+    return kind >= BIGINT && kind <= FLOAT;
+  }
+
+  /**
+   * Writes a value for a numeric column without storing it in the
+   * column: the same bytes as setLong(value) followed by getData(), or
+   * by getDataAsText() if <code>text</code> is set.
+   * 
+   * @throws ValueConverterException if the value is out of range
+   */
+  public void putLong(int colidx, long value, boolean text, ByteBuffer byteBuffer)
+      throws ValueConverterException {
+    switch (kinds[colidx]) {
+    case BIGINT:
+      break;
+    case INTEGER:
+      checkRange(value, 31, "INT");
+      break;
+    case MEDIUMINT:
+      checkRange(value, 23, "MEDIUMINT");
+      break;
+    case SMALLINT:
+      checkRange(value, 15, "SMALLINT");
+      break;
+    case TINYINT:
+      checkRange(value, 7, "TINYINT");
+      break;
+    case DOUBLE:
+    case FLOAT:
+      putDouble(colidx, (double) value, text, byteBuffer);
+      return;
+    default:
+      throw new IllegalArgumentException("column " + colidx + " is not numeric");
+    }
+    if (text) {
+      AsciiDigits.putLong(byteBuffer, value);
+      return;
+    }
+    switch (kinds[colidx]) {
+    case BIGINT:
+      byteBuffer.putLong(value);
+      break;
+    case INTEGER:
+      byteBuffer.putInt((int) value);
+      break;
+    case MEDIUMINT:
+      if (byteBuffer.order() == ByteOrder.LITTLE_ENDIAN) {
+        byteBuffer.putShort((short) (value & 0xffff));
+        byteBuffer.put((byte) ((value >> 16) & 0xff));
+      } else {
+        byteBuffer.put((byte) ((value >> 16) & 0xff));
+        byteBuffer.putShort((short) (value & 0xffff));
+      }
+      break;
+    case SMALLINT:
+      byteBuffer.putShort((short) value);
+      break;
+    default:
+      byteBuffer.put((byte) value);
+    }
+  }
+
+  /**
+   * Writes a value for a numeric column without storing it in the
+   * column: the same bytes as setDouble(value) followed by getData(),
+   * or by getDataAsText() if <code>text</code> is set.
+   * 
+   * @throws ValueConverterException if the value is out of range
+   */
+  public void putDouble(int colidx, double value, boolean text, ByteBuffer byteBuffer)
+      throws ValueConverterException {
+    switch (kinds[colidx]) {
+    case DOUBLE:
+      if (text) {
+        putAscii(Double.toString(value), byteBuffer);
+      } else {
+        byteBuffer.putDouble(value);
+      }
+      break;
+    case FLOAT:
+      float f = (float) value;
+      if (text) {
+        putAscii(Float.toString(f), byteBuffer);
+      } else {
+        byteBuffer.putFloat(f);
+      }
+      break;
+    default:
+      putLong(colidx, (long) value, text, byteBuffer);
+    }
+  }
+
+  private static void checkRange(long value, int bits, String typeName)
+      throws ValueConverterException {
+    if (value >= 1L<<bits || value < -(1L<<bits)) {
+      throw new ValueConverterException("Value " + value + " out of range for " + typeName);
+    }
+  }
+
+  private static void putAscii(String str, ByteBuffer byteBuffer) {
+    int len = str.length();
+    for (int i = 0; i < len; i++) {
+      byteBuffer.put((byte) str.charAt(i));
+    }
+  }
+}
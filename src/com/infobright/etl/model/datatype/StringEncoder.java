@@ -0,0 +1,129 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes strings of one column into a byte array owned by the column,
+ * reusing the same CharsetEncoder. Characters that cannot be encoded
+ * are replaced, as String.getBytes() does.
+ * 
+ * If the character set encodes ASCII as single identical bytes (such as
+ * ISO-8859-1 and UTF-8), ASCII strings are narrowed char by char
+ * without going through the encoder, and are checked for the double
+ * quote and backslash characters that need escaping in the text
+ * format.
+ */
+final class StringEncoder {
+
+  private final CharsetEncoder encoder;
+  private final float maxBytesPerChar;
+  private final boolean asciiFastPath;
+  
+  private boolean needsEscaping;
+  
+  StringEncoder(Charset charset) {
+    this.encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.maxBytesPerChar = encoder.maxBytesPerChar();
+    this.asciiFastPath = isAsciiCompatible(charset);
+  }
+  
+  private static boolean isAsciiCompatible(Charset charset) {
+    char[] ascii = new char[128];
+    for (int i = 0; i < ascii.length; i++) {
+      ascii[i] = (char) i;
+    }
+    ByteBuffer bytes = charset.encode(CharBuffer.wrap(ascii));
+    if (bytes.remaining() != ascii.length) {
+      return false;
+    }
+    for (int i = 0; i < ascii.length; i++) {
+      if (bytes.get(i) != i) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * @return the largest number of bytes the string can encode to
+   */
+  int maxBytes(String string) {
+    return (int) Math.ceil(string.length() * maxBytesPerChar);
+  }
+  
+  /**
+   * Encodes the string into dst, starting at index 0.
+   * 
+   * @return the number of bytes written, or -1 if they did not fit
+   */
+  int encode(String string, byte[] dst) {
+    int len = string.length();
+    if (asciiFastPath && len <= dst.length) {
+      boolean special = false;
+      int i = 0;
+      for (; i < len; i++) {
+        char c = string.charAt(i);
+        if (c >= 0x80) {
+          break;
+        }
+        if (c == '"' || c == '\\') {
+          special = true;
+        }
+        dst[i] = (byte) c;
+      }
+      if (i == len) {
+        needsEscaping = special;
+        return len;
+      }
+    }
+    // not known which bytes the encoder produces
+    needsEscaping = true;
+    ByteBuffer out = ByteBuffer.wrap(dst);
+    encoder.reset();
+    CoderResult result = encoder.encode(CharBuffer.wrap(string), out, true);
+    if (!result.isOverflow()) {
+      result = encoder.flush(out);
+    }
+    return result.isOverflow() ? -1 : out.position();
+  }
+  
+  /**
+   * @return false if the last string encoded is known to contain no
+   *   double quote or backslash
+   */
+  boolean isNeedsEscaping() {
+    return needsEscaping;
+  }
+}
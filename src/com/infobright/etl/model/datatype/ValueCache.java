@@ -0,0 +1,86 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the most recently used values of a string column,
+ * mapping each value to its encoded bytes. Least recently used values
+ * are evicted first.
+ */
+final class ValueCache {
+
+  static final class CachedValue {
+    final byte[] bytes;
+    final boolean needsEscaping;
+    
+    CachedValue(byte[] bytes, boolean needsEscaping) {
+      this.bytes = bytes;
+      this.needsEscaping = needsEscaping;
+    }
+  }
+  
+  private final Map<String, CachedValue> map;
+  private final CacheStats stats = new CacheStats();
+  
+  @SuppressWarnings("serial")
+  ValueCache(final int maxSize) {
+    map = new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+  
+  /**
+   * @return the cached entry for the value, or null
+   */
+  CachedValue get(String value) {
+    CachedValue entry = map.get(value);
+    if (entry == null) {
+      stats.miss();
+    } else {
+      stats.hit();
+    }
+    return entry;
+  }
+  
+  /**
+   * Caches a copy of data[0..length).
+   */
+  void put(String value, byte[] data, int length, boolean needsEscaping) {
+    byte[] bytes = new byte[length];
+    System.arraycopy(data, 0, bytes, 0, length);
+    map.put(value, new CachedValue(bytes, needsEscaping));
+  }
+  
+  CacheStats getStats() {
+    return stats;
+  }
+}
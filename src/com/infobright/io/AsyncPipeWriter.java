@@ -0,0 +1,366 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.infobright.etl.model.BufferHandoff;
+
+/**
+ * An output stream that hands the data to a writer task, which writes
+ * it to the underlying stream (normally the named pipe). Records encode
+ * their rows straight into buffers from a pool: a record hands over its
+ * filled buffer (see BufferHandoff), which is queued for the writer, and
+ * goes on with a free buffer from the pool. Other writes are copied into
+ * the pool buffers. The caller therefore only waits for the pipe when
+ * all the buffers are full, and encoding overlaps with the writes to the
+ * pipe.
+ * 
+ * The writer task runs on the LoadExecutor of the loader, like the load
+ * statement, so the executor must be able to run both at once.
+ * 
+ * Both sides count their stalls: the caller waiting for a free buffer
+ * (the pipe is the bottleneck), and the writer waiting for a full one
+ * (the caller is the bottleneck).
+ * 
+ * flush() waits until everything written so far has reached the
+ * underlying stream. An error in the writer is thrown by the next
+ * write, flush() or close().
+ */
+public class AsyncPipeWriter extends OutputStream implements BufferHandoff {
+
+  public static final int DEFAULT_BUFFER_COUNT = 4;
+
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  // queued by close() to stop the writer
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+  private final OutputStream out;
+  private final int bufferSize;
+  private final BlockingQueue<ByteBuffer> free;
+  private final BlockingQueue<ByteBuffer> full;
+  private final CountDownLatch writerDone = new CountDownLatch(1);
+  private final byte[] oneByte = new byte[1];
+
+  // the buffer being filled by write()
+  private ByteBuffer current;
+
+  private boolean closed = false;
+
+  // guarded by this
+  private long queued = 0;
+  private long written = 0;
+  private IOException error = null;
+
+  private volatile long producerStalls = 0;
+  private volatile long producerStallNanos = 0;
+  private volatile long writerStalls = 0;
+  private volatile long writerStallNanos = 0;
+
+  public AsyncPipeWriter(OutputStream out) {
+    this(out, DEFAULT_BUFFER_COUNT, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Runs the writer on the default LoadExecutor.
+   * 
+   * @param out the stream written by the writer
+   * @param bufferCount number of buffers, at least 2
+   * @param bufferSize size of each buffer in bytes
+   */
+  public AsyncPipeWriter(OutputStream out, int bufferCount, int bufferSize) {
+    this(out, bufferCount, bufferSize, LoadExecutor.getDefault());
+  }
+
+  /**
+   * @param out the stream written by the writer
+   * @param bufferCount number of buffers, at least 2
+   * @param bufferSize size of each buffer in bytes
+   * @param executor runs the writer; it must not run it in the calling
+   *   thread
+   */
+  public AsyncPipeWriter(OutputStream out, int bufferCount, int bufferSize, Executor executor) {
+    if (bufferCount < 2) {
+      throw new IllegalArgumentException("at least 2 buffers are needed");
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("buffer size must be positive");
+    }
+    this.out = out;
+    this.bufferSize = bufferSize;
+    free = new LinkedBlockingQueue<ByteBuffer>();
+    full = new LinkedBlockingQueue<ByteBuffer>();
+    for (int i = 1; i < bufferCount; i++) {
+      free.add(ByteBuffer.allocate(bufferSize));
+    }
+    current = ByteBuffer.allocate(bufferSize);
+    executor.execute(new Runnable() {
+      //@Override
+      public void run() {
+        try {
+          drain();
+        } finally {
+          writerDone.countDown();
+        }
+      }
+    });
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    oneByte[0] = (byte) b;
+    write(oneByte, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkOpen();
+    while (len > 0) {
+      int n = Math.min(len, current.remaining());
+      current.put(b, off, n);
+      off += n;
+      len -= n;
+      if (!current.hasRemaining()) {
+        current = submit(current);
+      }
+    }
+  }
+
+  /**
+   * Queues the filled buffer for the writer, after any bytes written
+   * before it, and returns a free one from the pool. The pool takes over
+   * the filled buffer once it is written.
+   */
+  //@Override
+  public ByteBuffer handOff(ByteBuffer filled) throws IOException {
+    checkOpen();
+    if (filled.position() == 0) {
+      filled.clear();
+      return filled;
+    }
+    if (current.position() > 0) {
+      current = submit(current);
+    }
+    return submit(filled);
+  }
+
+  /**
+   * Waits until all the data written so far has been written to the
+   * underlying stream, and flushes it.
+   */
+  @Override
+  public void flush() throws IOException {
+    checkOpen();
+    if (current.position() > 0) {
+      current = submit(current);
+    }
+    awaitWritten();
+    out.flush();
+  }
+
+  /**
+   * Writes the remaining data, stops the writer and closes the
+   * underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (current.position() > 0 && getError() == null) {
+        current = submit(current);
+      }
+      awaitWritten();
+    } finally {
+      closed = true;
+      full.add(END);
+      try {
+        writerDone.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      out.close();
+    }
+  }
+
+  /**
+   * Queues a filled buffer for the writer and takes a free one, waiting
+   * if there is none.
+   * 
+   * @return the free buffer, cleared
+   */
+  private ByteBuffer submit(ByteBuffer filled) throws IOException {
+    synchronized (this) {
+      queued++;
+    }
+    full.add(filled);
+    ByteBuffer next = free.poll();
+    if (next == null) {
+      long start = System.nanoTime();
+      try {
+        next = free.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("interrupted waiting for a free buffer");
+      }
+      producerStalls++;
+      producerStallNanos += System.nanoTime() - start;
+    }
+    IOException e = getError();
+    if (e != null) {
+      free.add(next);
+      throw e;
+    }
+    return next;
+  }
+
+  private synchronized void awaitWritten() throws IOException {
+    while (written < queued && error == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("interrupted waiting for the writer");
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("stream closed");
+    }
+    IOException e = getError();
+    if (e != null) {
+      throw e;
+    }
+  }
+
+  private synchronized IOException getError() {
+    return error;
+  }
+
+  /**
+   * Body of the writer. After an error the remaining buffers are
+   * discarded, so that the caller never waits for a free one. Buffers
+   * smaller than the buffer size, such as those a record started with,
+   * are replaced in the pool by full sized ones.
+   */
+  private void drain() {
+    while (true) {
+      ByteBuffer buffer = full.poll();
+      if (buffer == null) {
+        long start = System.nanoTime();
+        try {
+          buffer = full.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        writerStalls++;
+        writerStallNanos += System.nanoTime() - start;
+      }
+      if (buffer == END) {
+        return;
+      }
+      IOException failure = null;
+      if (getError() == null) {
+        try {
+          out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        } catch (IOException e) {
+          failure = e;
+        } catch (RuntimeException e) {
+          failure = new IOException("write to pipe failed: " + e);
+        }
+      }
+      if (buffer.capacity() < bufferSize) {
+        buffer = ByteBuffer.allocate(bufferSize);
+      }
+      buffer.clear();
+      free.add(buffer);
+      synchronized (this) {
+        written++;
+        if (failure != null && error == null) {
+          error = failure;
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * @return number of times the caller waited for a free buffer
+   */
+  public long getProducerStalls() {
+    return producerStalls;
+  }
+
+  /**
+   * @return total time the caller waited for a free buffer, in
+   *   nanoseconds
+   */
+  public long getProducerStallNanos() {
+    return producerStallNanos;
+  }
+
+  /**
+   * @return number of times the writer thread waited for a full buffer
+   */
+  public long getWriterStalls() {
+    return writerStalls;
+  }
+
+  /**
+   * @return total time the writer thread waited for a full buffer, in
+   *   nanoseconds
+   */
+  public long getWriterStallNanos() {
+    return writerStallNanos;
+  }
+
+  /**
+   * @return number of buffers written to the underlying stream
+   */
+  public synchronized long getBuffersWritten() {
+    return written;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("buffers written %d, producer stalls %d (%d ms), writer stalls %d (%d ms)",
+        getBuffersWritten(), producerStalls, producerStallNanos / 1000000,
+        writerStalls, writerStallNanos / 1000000);
+  }
+}
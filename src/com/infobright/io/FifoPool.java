@@ -0,0 +1,286 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+
+/**
+ * Pool of FIFOs created ahead of time by a background thread, so that a
+ * local load on Unix can start without creating its named pipe. Each
+ * loader takes a FIFO from the pool in start() and deletes it when it is
+ * closed, and the pool creates another in its place.
+ * 
+ * The pool is disabled (size 0) by default. A directory on tmpfs is the
+ * best place for the FIFOs. The FIFO names contain the process id of
+ * the JVM; FIFOs left behind in the directory by processes that no
+ * longer exist are deleted when the pool is first used.
+ * 
+ * If the pool is empty a loader creates its own FIFO, as it does when
+ * the pool is disabled.
+ */
+public final class FifoPool {
+
+  /**
+   * Default directory of the FIFOs, the same as for loaders not using
+   * the pool.
+   */
+  public static final String DEFAULT_DIRECTORY = "/tmp";
+
+  private static final String PREFIX = "ibfifo-";
+
+  private static final String PID = getProcessId();
+
+  private static final Object lock = new Object();
+
+  // all guarded by lock
+  private static String directory = DEFAULT_DIRECTORY;
+  private static int size = 0;
+  private static final LinkedList<String> ready = new LinkedList<String>();
+  private static long counter = 0;
+  private static long hits = 0;
+  private static long misses = 0;
+  private static Thread filler = null;
+  private static boolean cleaned = false;
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        clear();
+      }
+    });
+  }
+
+  private FifoPool() {
+  }
+
+  /**
+   * Sets the number of FIFOs kept ready. The pool is filled in the
+   * background.
+   * 
+   * @param poolSize number of FIFOs; 0 disables the pool and deletes the
+   *   FIFOs in it
+   */
+  public static void setSize(int poolSize) {
+    if (poolSize < 0) {
+      throw new IllegalArgumentException("pool size must not be negative");
+    }
+    synchronized (lock) {
+      size = poolSize;
+      while (ready.size() > size) {
+        new File(ready.removeLast()).delete();
+      }
+      if (size > 0 && filler == null) {
+        filler = new Filler();
+        filler.start();
+      }
+      lock.notifyAll();
+    }
+  }
+
+  public static int getSize() {
+    synchronized (lock) {
+      return size;
+    }
+  }
+
+  /**
+   * Sets the directory in which the FIFOs are created. FIFOs already in
+   * the pool are deleted.
+   * 
+   * @param dir an absolute path
+   */
+  public static void setDirectory(String dir) {
+    if (!dir.startsWith("/")) {
+      throw new IllegalArgumentException("not an absolute path: " + dir);
+    }
+    synchronized (lock) {
+      clear();
+      directory = dir;
+      cleaned = false;
+      lock.notifyAll();
+    }
+  }
+
+  public static String getDirectory() {
+    synchronized (lock) {
+      return directory;
+    }
+  }
+
+  /**
+   * @return number of FIFOs ready to be taken
+   */
+  public static int getAvailable() {
+    synchronized (lock) {
+      return ready.size();
+    }
+  }
+
+  /**
+   * @return number of times a loader found a FIFO in the pool
+   */
+  public static long getHits() {
+    synchronized (lock) {
+      return hits;
+    }
+  }
+
+  /**
+   * @return number of times a loader found the pool enabled but empty
+   */
+  public static long getMisses() {
+    synchronized (lock) {
+      return misses;
+    }
+  }
+
+  /**
+   * Takes a FIFO from the pool.
+   * 
+   * @return the path of the FIFO, or null if the pool is disabled or
+   *   empty
+   */
+  static String take() {
+    synchronized (lock) {
+      if (size == 0) {
+        return null;
+      }
+      String path = ready.poll();
+      if (path == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      lock.notifyAll();
+      return path;
+    }
+  }
+
+  /**
+   * Deletes the FIFOs in the pool.
+   */
+  private static void clear() {
+    synchronized (lock) {
+      for (String path : ready) {
+        new File(path).delete();
+      }
+      ready.clear();
+    }
+  }
+
+  /**
+   * Deletes FIFOs from this pool's directory whose process has exited.
+   */
+  private static void deleteStale(String dir) {
+    File[] files = new File(dir).listFiles();
+    if (files == null || !new File("/proc/self").exists()) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (!name.startsWith(PREFIX) || file.isFile() || file.isDirectory()) {
+        continue;
+      }
+      int end = name.indexOf('-', PREFIX.length());
+      if (end > 0) {
+        String pid = name.substring(PREFIX.length(), end);
+        if (!pid.equals(PID) && !new File("/proc/" + pid).exists()) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  private static String getProcessId() {
+    // "pid@hostname" on the common JVMs
+    String name = ManagementFactory.getRuntimeMXBean().getName();
+    int at = name.indexOf('@');
+    return (at > 0) ? name.substring(0, at) : Integer.toHexString(name.hashCode());
+  }
+
+  /**
+   * Background thread that keeps the pool full.
+   */
+  private static class Filler extends Thread {
+
+    Filler() {
+      super("FifoPool filler");
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        String dir;
+        String path;
+        boolean clean;
+        synchronized (lock) {
+          while (ready.size() >= size) {
+            try {
+              lock.wait();
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+          dir = directory;
+          clean = !cleaned;
+          cleaned = true;
+          path = dir + "/" + PREFIX + PID + "-" + (counter++);
+        }
+        if (clean) {
+          deleteStale(dir);
+        }
+        if (new File(path).exists()) {
+          continue;
+        }
+        try {
+          LinuxNamedPipe.createFIFO(path);
+        } catch (IOException e) {
+          // try again when the next FIFO is taken
+          synchronized (lock) {
+            try {
+              lock.wait();
+            } catch (InterruptedException ie) {
+              return;
+            }
+          }
+          continue;
+        }
+        synchronized (lock) {
+          if (dir.equals(directory) && ready.size() < size) {
+            ready.add(path);
+          } else {
+            new File(path).delete();
+          }
+        }
+      }
+    }
+  }
+}
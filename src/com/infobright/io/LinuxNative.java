@@ -0,0 +1,271 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Calls into the C library for the FIFO operations that Java has no API
+ * for, through the Foreign Function &amp; Memory API (java.lang.foreign,
+ * Java 21 and later). The API is used by reflection so that this class
+ * still loads on older JVMs, where isAvailable() returns false and the
+ * callers fall back to their previous behaviour.
+ * 
+ * The JVM prints a warning on first use unless it is started with
+ * --enable-native-access=ALL-UNNAMED.
+ */
+final class LinuxNative {
+
+  // <fcntl.h> values, the same on all the architectures accepted below
+  private static final int O_RDONLY = 0;
+  private static final int O_NONBLOCK = 04000;
+  private static final int F_SETPIPE_SZ = 1031;
+  private static final int F_GETPIPE_SZ = 1032;
+
+  private static final String PIPE_MAX_SIZE_FILE = "/proc/sys/fs/pipe-max-size";
+
+  private static final String[] ARCHITECTURES = {
+    "amd64", "x86_64", "i386", "x86", "aarch64", "arm", "ppc64le", "ppc64", "s390x", "riscv64"
+  };
+
+  private static final Method INVOKE;
+  private static final Method OF_CONFINED;
+  private static final Method ALLOCATE_STRING;
+  private static final Method CLOSE_ARENA;
+
+  private static final Object OPEN;
+  private static final Object CLOSE;
+  private static final Object FCNTL;
+  private static final Object MKFIFO;
+  private static final Object CHMOD;
+
+  static {
+    Object javaInt = null, address = null, open = null, close = null, fcntl = null;
+    Object mkfifo = null, chmod = null;
+    Method invoke = null, ofConfined = null, allocateString = null, closeArena = null;
+    if (isSupportedPlatform()) {
+      try {
+        Class<?> valueLayout = Class.forName("java.lang.foreign.ValueLayout");
+        javaInt = valueLayout.getField("JAVA_INT").get(null);
+        address = valueLayout.getField("ADDRESS").get(null);
+        invoke = Class.forName("java.lang.invoke.MethodHandle")
+            .getMethod("invokeWithArguments", Object[].class);
+        Class<?> arena = Class.forName("java.lang.foreign.Arena");
+        ofConfined = arena.getMethod("ofConfined");
+        closeArena = arena.getMethod("close");
+        Class<?> allocator = Class.forName("java.lang.foreign.SegmentAllocator");
+        try {
+          allocateString = allocator.getMethod("allocateFrom", String.class);
+        } catch (NoSuchMethodException e) {
+          // Java 21 name
+          allocateString = allocator.getMethod("allocateUtf8String", String.class);
+        }
+        open = downcall("open", javaInt, new Object[] { address, javaInt }, -1);
+        close = downcall("close", javaInt, new Object[] { javaInt }, -1);
+        fcntl = downcall("fcntl", javaInt, new Object[] { javaInt, javaInt, javaInt }, 2);
+        mkfifo = downcall("mkfifo", javaInt, new Object[] { address, javaInt }, -1);
+        chmod = downcall("chmod", javaInt, new Object[] { address, javaInt }, -1);
+      } catch (Throwable t) {
+        // no usable FFM API on this JVM
+        open = null;
+      }
+    }
+    INVOKE = invoke;
+    OF_CONFINED = ofConfined;
+    ALLOCATE_STRING = allocateString;
+    CLOSE_ARENA = closeArena;
+    OPEN = open;
+    CLOSE = close;
+    FCNTL = fcntl;
+    MKFIFO = mkfifo;
+    CHMOD = chmod;
+  }
+
+  private LinuxNative() {
+  }
+
+  /**
+   * @return true if the native calls can be made on this JVM and platform
+   */
+  static boolean isAvailable() {
+    return OPEN != null;
+  }
+
+  /**
+   * Sets the capacity of the FIFO's pipe buffer, which must be open at
+   * both ends. The size is limited to the system maximum.
+   * 
+   * @param path the FIFO
+   * @param size requested capacity in bytes
+   * @return the capacity granted by the kernel
+   * @throws IOException if the capacity could not be read or set
+   */
+  static int setPipeSize(String path, int size) throws IOException {
+    int maxSize = getPipeMaxSize();
+    if (maxSize > 0 && size > maxSize) {
+      size = maxSize;
+    }
+    // any descriptor of the pipe will do; opening for reading without
+    // blocking always succeeds, and no data is read through it
+    int fd = call(OPEN, path, O_RDONLY | O_NONBLOCK);
+    if (fd < 0) {
+      throw new IOException("cannot open " + path);
+    }
+    try {
+      int granted = call(FCNTL, fd, F_SETPIPE_SZ, size);
+      if (granted < 0) {
+        granted = call(FCNTL, fd, F_GETPIPE_SZ, 0);
+      }
+      if (granted < 0) {
+        throw new IOException("cannot get pipe size of " + path);
+      }
+      return granted;
+    } finally {
+      call(CLOSE, fd);
+    }
+  }
+
+  /**
+   * Creates a FIFO with the given permissions, which unlike mkfifo(3)
+   * are not reduced by the umask.
+   * 
+   * @param path the FIFO to create
+   * @param mode permission bits, e.g. 0644
+   * @throws IOException if the FIFO could not be created
+   */
+  static void mkfifo(String path, int mode) throws IOException {
+    if (call(MKFIFO, path, mode) != 0) {
+      throw new IOException("mkfifo failed: " + path);
+    }
+    if (call(CHMOD, path, mode) != 0) {
+      throw new IOException("chmod failed: " + path);
+    }
+  }
+
+  /**
+   * @return the largest pipe capacity an unprivileged process may set,
+   *   or -1 if unknown
+   */
+  static int getPipeMaxSize() {
+    try {
+      BufferedReader in = new BufferedReader(new FileReader(PIPE_MAX_SIZE_FILE));
+      try {
+        return Integer.parseInt(in.readLine().trim());
+      } finally {
+        in.close();
+      }
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Calls a C function. String arguments are passed as C strings.
+   * 
+   * @return the int result of the function
+   */
+  private static int call(Object function, Object... args) throws IOException {
+    try {
+      Object arena = null;
+      try {
+        for (int i = 0; i < args.length; i++) {
+          if (args[i] instanceof String) {
+            if (arena == null) {
+              arena = OF_CONFINED.invoke(null);
+            }
+            args[i] = ALLOCATE_STRING.invoke(arena, args[i]);
+          }
+        }
+        return ((Integer) INVOKE.invoke(function, (Object) args)).intValue();
+      } finally {
+        if (arena != null) {
+          CLOSE_ARENA.invoke(arena);
+        }
+      }
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("native call failed: " + cause);
+    } catch (IllegalAccessException e) {
+      throw new IOException("native call failed: " + e);
+    }
+  }
+
+  /**
+   * Looks up a C library function and returns a method handle for it.
+   * 
+   * @param firstVariadic index of the first variadic argument, or -1
+   */
+  private static Object downcall(String name, Object result, Object[] args, int firstVariadic)
+      throws Exception {
+    Class<?> linkerClass = Class.forName("java.lang.foreign.Linker");
+    Class<?> optionClass = Class.forName("java.lang.foreign.Linker$Option");
+    Class<?> layoutClass = Class.forName("java.lang.foreign.MemoryLayout");
+    Class<?> descriptorClass = Class.forName("java.lang.foreign.FunctionDescriptor");
+    Class<?> segmentClass = Class.forName("java.lang.foreign.MemorySegment");
+    Class<?> lookupClass = Class.forName("java.lang.foreign.SymbolLookup");
+
+    Object linker = linkerClass.getMethod("nativeLinker").invoke(null);
+    Object lookup = linkerClass.getMethod("defaultLookup").invoke(linker);
+    Object found = lookupClass.getMethod("find", String.class).invoke(lookup, name);
+    Object symbol = found.getClass().getMethod("get").invoke(found);
+
+    Object layouts = Array.newInstance(layoutClass, args.length);
+    for (int i = 0; i < args.length; i++) {
+      Array.set(layouts, i, args[i]);
+    }
+    Object descriptor = descriptorClass.getMethod("of", layoutClass, layouts.getClass())
+        .invoke(null, result, layouts);
+
+    Object options = Array.newInstance(optionClass, firstVariadic < 0 ? 0 : 1);
+    if (firstVariadic >= 0) {
+      Array.set(options, 0, optionClass.getMethod("firstVariadicArg", int.class)
+          .invoke(null, firstVariadic));
+    }
+    return linkerClass.getMethod("downcallHandle", segmentClass, descriptorClass, options.getClass())
+        .invoke(linker, symbol, descriptor, options);
+  }
+
+  private static boolean isSupportedPlatform() {
+    if (!new OSType().isLinux()) {
+      return false;
+    }
+    String arch = System.getProperty("os.arch");
+    for (String a : ARCHITECTURES) {
+      if (a.equals(arch)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
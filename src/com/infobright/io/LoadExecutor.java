@@ -0,0 +1,160 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the blocking LOAD DATA statements of the loaders, and the writers
+ * of loads in async mode (see AsyncPipeWriter), and counts the tasks
+ * queued, running and completed. Any Executor can be used; loaders
+ * share the default one unless given another with
+ * InfobrightNamedPipeLoader.setLoadExecutor().
+ * 
+ * The default executor starts a virtual thread per load on Java 24 and
+ * later, and otherwise reuses daemon threads from a cached pool. Before
+ * Java 24 a virtual thread is pinned to its carrier thread while inside
+ * a synchronized block, and JDBC drivers such as MySQL Connector/J 5.1
+ * run the whole statement inside one. Loads blocked on their pipes
+ * would then hold every carrier thread, and starve other loads.
+ */
+public class LoadExecutor implements Executor {
+
+  private static LoadExecutor defaultExecutor = null;
+
+  private final Executor executor;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong completed = new AtomicLong();
+
+  /**
+   * @param executor runs the loads; it must be able to run as many at
+   *   once as there are loaders started concurrently, counting twice
+   *   those in async mode
+   */
+  public LoadExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * @return the executor shared by loaders not given another one
+   */
+  public static synchronized LoadExecutor getDefault() {
+    if (defaultExecutor == null) {
+      defaultExecutor = new LoadExecutor(createDefaultExecutor());
+    }
+    return defaultExecutor;
+  }
+
+  private static Executor createDefaultExecutor() {
+    if (getJavaVersion() >= 24) {
+      try {
+        return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (Exception e) {
+        // fall back to platform threads
+      }
+    }
+    return Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+      //@Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Infobright load " + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * @return the major Java version, e.g. 8 or 24
+   */
+  private static int getJavaVersion() {
+    String version = System.getProperty("java.specification.version", "1.5");
+    if (version.startsWith("1.")) {
+      version = version.substring(2);
+    }
+    int dot = version.indexOf('.');
+    try {
+      return Integer.parseInt(dot < 0 ? version : version.substring(0, dot));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  //@Override
+  public void execute(final Runnable command) {
+    queued.incrementAndGet();
+    try {
+      executor.execute(new Runnable() {
+        //@Override
+        public void run() {
+          queued.decrementAndGet();
+          active.incrementAndGet();
+          try {
+            command.run();
+          } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * @return number of loads submitted and not yet started
+   */
+  public int getQueued() {
+    return queued.get();
+  }
+
+  /**
+   * @return number of loads running
+   */
+  public int getActive() {
+    return active.get();
+  }
+
+  /**
+   * @return number of loads finished, successfully or not
+   */
+  public long getCompleted() {
+    return completed.get();
+  }
+
+  @Override
+  public String toString() {
+    return "queued=" + getQueued() + ", active=" + getActive() + ", completed=" + getCompleted();
+  }
+}
@@ -0,0 +1,170 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.infobright.etl.model.BrighthouseRecord;
+import com.infobright.etl.model.DataFormat;
+import com.infobright.logging.EtlLogger;
+
+/**
+ * A series of loads into the same table over the same connection. The
+ * loader, its record and the session variables set on the connection are
+ * kept from one load to the next; only the pipe and the LOAD statement
+ * are new for each load. Usage:
+ * 
+ * <pre>
+ * LoaderSession session = new LoaderSession(table, connection, logger, format, charset);
+ * BrighthouseRecord record = session.createRecord(false);
+ * session.start();
+ * while (...) {
+ *   // set the values and write each row to session.getOutputStream()
+ *   session.nextLoad(); // commits the rows written so far
+ * }
+ * session.close();
+ * </pre>
+ * 
+ * Settings such as the pipe buffer size are made on getLoader() before
+ * the first start().
+ */
+public class LoaderSession {
+
+  private final InfobrightNamedPipeLoader loader;
+  private BrighthouseRecord record = null;
+  private boolean loading = false;
+  private int loadCount = 0;
+
+  public LoaderSession(String tableName, Connection connection, EtlLogger logger,
+      DataFormat dataFormat, Charset charset) throws Exception {
+    this(tableName, connection, logger, dataFormat, charset,
+        InfobrightNamedPipeLoader.AGENT_DEFAULT_PORT);
+  }
+
+  public LoaderSession(String tableName, Connection connection, EtlLogger logger,
+      DataFormat dataFormat, Charset charset, int agentPort) throws Exception {
+    loader = new InfobrightNamedPipeLoader(tableName, connection, logger, dataFormat,
+        charset, agentPort);
+  }
+
+  /**
+   * @return the loader that runs the loads
+   */
+  public InfobrightNamedPipeLoader getLoader() {
+    return loader;
+  }
+
+  /**
+   * Returns the record used for all the loads of the session. See
+   * InfobrightNamedPipeLoader.createRecord(boolean).
+   */
+  public BrighthouseRecord createRecord(boolean checkValues) throws SQLException {
+    record = loader.createRecord(checkValues);
+    return record;
+  }
+
+  /**
+   * Returns the record used for all the loads of the session, for some
+   * of the table's columns. See
+   * InfobrightNamedPipeLoader.createRecord(boolean, List).
+   */
+  public BrighthouseRecord createRecord(boolean checkValues, List<String> columnNames)
+      throws SQLException {
+    record = loader.createRecord(checkValues, columnNames);
+    return record;
+  }
+
+  /**
+   * Starts a load, if none is running.
+   * 
+   * @throws Exception
+   */
+  public void start() throws Exception {
+    if (loading) {
+      return;
+    }
+    if (loadCount > 0) {
+      loader.prepareNextLoad();
+    }
+    loader.start();
+    loading = true;
+    loadCount++;
+  }
+
+  /**
+   * @return the stream to write the rows of the current load to
+   */
+  public OutputStream getOutputStream() {
+    return loader.getOutputStream2();
+  }
+
+  /**
+   * Finishes the current load, which commits the rows written to it,
+   * and starts the next one.
+   * 
+   * @throws Exception if the current load failed, in which case the next
+   *   one is not started
+   */
+  public void nextLoad() throws Exception {
+    finishLoad();
+    start();
+  }
+
+  /**
+   * Finishes the current load, if any.
+   * 
+   * @throws Exception if the load failed
+   */
+  public void close() throws Exception {
+    finishLoad();
+  }
+
+  /**
+   * @return the number of loads started
+   */
+  public int getLoadCount() {
+    return loadCount;
+  }
+
+  private void finishLoad() throws Exception {
+    if (!loading) {
+      return;
+    }
+    loading = false;
+    try {
+      if (record != null) {
+        // rows still in the record buffer belong to this load
+        record.flush(loader.getOutputStream2());
+      }
+    } finally {
+      loader.stop();
+    }
+  }
+}
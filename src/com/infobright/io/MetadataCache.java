@@ -0,0 +1,227 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.infobright.etl.model.ColumnInfo;
+
+/**
+ * Process-wide cache of the database metadata a loader needs before it
+ * can start: the columns of each table, and whether the server supports
+ * LOAD DATA LOCAL INFILE. Columns are keyed by JDBC URL, current catalog
+ * (database) of the connection and table name; the LOCAL INFILE answer
+ * by URL. Entries expire after a time to live, so that repeated loads
+ * into the same tables do not query the server each time.
+ * 
+ * Caching is off until setTimeToLive() is called with a positive value.
+ * While it is on, a table altered by another connection is only seen
+ * when its entry expires, so call invalidate() after altering a table.
+ */
+public final class MetadataCache {
+
+  public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 0L;
+  
+  private static long timeToLive = DEFAULT_TIME_TO_LIVE_MILLIS;
+  
+  // url -> (catalog, table name) -> columns
+  private static final Map<String, Map<TableKey, Entry<List<ColumnInfo>>>> tables
+      = new HashMap<String, Map<TableKey, Entry<List<ColumnInfo>>>>();
+  
+  // url -> supports LOAD DATA LOCAL INFILE
+  private static final Map<String, Entry<Boolean>> localInfile
+      = new HashMap<String, Entry<Boolean>>();
+  
+  private static final class Entry<T> {
+    final T value;
+    final long expires;
+    
+    Entry(T value, long expires) {
+      this.value = value;
+      this.expires = expires;
+    }
+  }
+  
+  private static final class TableKey {
+    final String catalog;
+    final String tableName;
+    
+    TableKey(String catalog, String tableName) {
+      this.catalog = catalog;
+      this.tableName = tableName;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TableKey)) {
+        return false;
+      }
+      TableKey other = (TableKey) o;
+      return tableName.equals(other.tableName)
+          && (catalog == null ? other.catalog == null : catalog.equals(other.catalog));
+    }
+    
+    @Override
+    public int hashCode() {
+      return tableName.hashCode() * 31 + (catalog == null ? 0 : catalog.hashCode());
+    }
+  }
+  
+  private MetadataCache() {
+  }
+  
+  /**
+   * Sets how long entries are kept. Entries already cached keep their
+   * original expiry time.
+   * 
+   * @param millis time to live in milliseconds, or 0 to disable caching
+   */
+  public static synchronized void setTimeToLive(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("time to live must be >= 0");
+    }
+    timeToLive = millis;
+  }
+  
+  public static synchronized long getTimeToLive() {
+    return timeToLive;
+  }
+  
+  /**
+   * Removes the cached columns of one table, in every catalog.
+   * 
+   * @param url the JDBC URL of the connection
+   * @param tableName
+   */
+  public static synchronized void invalidate(String url, String tableName) {
+    Map<TableKey, Entry<List<ColumnInfo>>> urlTables = tables.get(url);
+    if (urlTables != null) {
+      Iterator<TableKey> it = urlTables.keySet().iterator();
+      while (it.hasNext()) {
+        if (it.next().tableName.equals(tableName)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes everything cached for one JDBC URL.
+   * 
+   * @param url the JDBC URL of the connection
+   */
+  public static synchronized void invalidate(String url) {
+    tables.remove(url);
+    localInfile.remove(url);
+  }
+  
+  public static synchronized void invalidateAll() {
+    tables.clear();
+    localInfile.clear();
+  }
+  
+  /**
+   * @param connection the connection to query if the columns are not
+   *   cached
+   * @param url the JDBC URL of the connection
+   * @param tableName
+   * @return the columns of the table
+   * @throws SQLException
+   */
+  static List<ColumnInfo> getColumns(Connection connection, String url, String tableName)
+      throws SQLException {
+    // the same unqualified name is another table after USE otherdb
+    TableKey key = new TableKey(connection.getCatalog(), tableName);
+    synchronized (MetadataCache.class) {
+      Map<TableKey, Entry<List<ColumnInfo>>> urlTables = tables.get(url);
+      Entry<List<ColumnInfo>> entry = (urlTables == null) ? null : urlTables.get(key);
+      if (isFresh(entry)) {
+        return entry.value;
+      }
+    }
+    // query without holding the lock, so that one slow server does not
+    // hold up loaders to other servers
+    List<ColumnInfo> columns;
+    Statement stmt = connection.createStatement();
+    try {
+      ResultSet rs = stmt.executeQuery("select * from `" + tableName + "` limit 0");
+      columns = ColumnInfo.readColumnInfo(rs.getMetaData());
+      rs.close();
+    } finally {
+      stmt.close();
+    }
+    synchronized (MetadataCache.class) {
+      if (timeToLive > 0) {
+        Map<TableKey, Entry<List<ColumnInfo>>> urlTables = tables.get(url);
+        if (urlTables == null) {
+          urlTables = new HashMap<TableKey, Entry<List<ColumnInfo>>>();
+          tables.put(url, urlTables);
+        }
+        urlTables.put(key, new Entry<List<ColumnInfo>>(columns, expiry()));
+      }
+    }
+    return columns;
+  }
+  
+  /**
+   * @param connection the connection to query if the answer is not
+   *   cached
+   * @param url the JDBC URL of the connection
+   * @return whether the server supports LOAD DATA LOCAL INFILE
+   * @throws SQLException
+   */
+  static boolean isSupportsLocalInfile(Connection connection, String url)
+      throws SQLException {
+    synchronized (MetadataCache.class) {
+      Entry<Boolean> entry = localInfile.get(url);
+      if (isFresh(entry)) {
+        return entry.value;
+      }
+    }
+    boolean supported = new IBVersionUtil(connection).isSupportsLocalInfile();
+    synchronized (MetadataCache.class) {
+      if (timeToLive > 0) {
+        localInfile.put(url, new Entry<Boolean>(supported, expiry()));
+      }
+    }
+    return supported;
+  }
+  
+  private static boolean isFresh(Entry<?> entry) {
+    return entry != null && System.currentTimeMillis() < entry.expires;
+  }
+  
+  private static long expiry() {
+    return System.currentTimeMillis() + timeToLive;
+  }
+}
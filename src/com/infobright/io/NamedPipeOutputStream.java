@@ -1,113 +1,314 @@
-/*
-The MIT License
-
-Copyright (c) 2009 Infobright Inc.
-
-Permission is hereby granted, free of charge, to any person obtaining a
-copy of this software and associated documentation files (the "Software"),
-to deal in the Software without restriction, including without limitation
-the rights to use, copy, modify, merge, publish, distribute, sublicense,
-and/or sell copies of the Software, and to permit persons to whom the
-Software is furnished to do so, subject to the following conditions:
-
-The above copyright notice and this permission notice shall be
-included in all copies or substantial portions of the Software.
-
-THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
-IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
-FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
-THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
-OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
-ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
-OTHER DEALINGS IN THE SOFTWARE.
-*/
-
-package com.infobright.io;
-
-import java.io.IOException;
-import java.io.OutputStream;
-
-import com.infobright.logging.EtlLogger;
-
-/**
- * An output stream which writes to a named pipe.
- */
-public class NamedPipeOutputStream extends OutputStream {
-  
-  private NamedPipe namedPipe = null;
-  private byte[] oneByte = new byte[1];
-  private final EtlLogger logger;
-  
-  public NamedPipeOutputStream(String pipeName) throws IOException {
-    this(pipeName, null, null);
-  }
-  
-  /**
-   * Creates and returns an OutputStream which can write to the named pipe.
-   * @param pipeName 
-   * @throws IOException 
-   */
-  public NamedPipeOutputStream(String pipeName, ClientProxy proxy) throws IOException {
-    this(pipeName, proxy, null);
-  }
-
-  /**
-   * Creates and returns an OutputStream which can write to the named pipe.
-   * @param pipeName
-   * @param proxy The client proxy to use (or null)
-   * @param logger 
-   * @throws IOException 
-   */
-  public NamedPipeOutputStream(String pipeName, ClientProxy proxy, EtlLogger logger) throws IOException {
-    this.logger = logger;
-    if (this.logger != null) {
-      this.logger.debug(String.format("creating named pipe client \"%s\"", pipeName));
-    }
-    namedPipe = new NamedPipeFactory(proxy).createClient(pipeName); 
-    namedPipe.connect();
-    if (logger != null) {
-      logger.debug("NamedPipeFactory.createClient(name) returned " + namedPipe);
-    }
-  }
-  
-  /** {@inheritDoc}
-   * @see java.io.OutputStream#write(int)
-   */
-  @Override
-  public void write(int b) throws IOException {
-    oneByte[0] = (byte) b;
-    write(oneByte, 0, 1);
-  }
-
-  /** {@inheritDoc}
-   * @see java.io.OutputStream#write(byte[], int, int)
-   */
-  @Override
-  public void write(byte[] b, int off, int len) throws IOException {
-    int bytesWritten = 0;
-    
-    bytesWritten = namedPipe.write(b, off, len);
-    
-    if (bytesWritten != len) {
-      throw new IOException(String.format("Meant to write %d bytes but wrote %d bytes", len, bytesWritten));
-    }
-  }
-  
-  /** {@inheritDoc}
-   * @see java.io.OutputStream#close()
-   */
-  public void close() throws IOException {
-    namedPipe.close(); // terminates the load
-    namedPipe = null;
-  }
-  
-  /** {@inheritDoc}
-   * @see java.lang.Object#finalize()
-   */
-  @Override
-  protected void finalize() throws Throwable {
-    if (namedPipe != null) {
-      close();
-    }
-  }
-}
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.infobright.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import com.infobright.logging.EtlLogger;
+
+/**
+ * An output stream which writes to a named pipe. Small writes are
+ * collected in a buffer and passed to the pipe together, so that each
+ * pipe write carries up to a full buffer; writes at least as large as
+ * the buffer go straight through. Buffered data is written on flush()
+ * and close().
+ * 
+ * The stream is also a channel, so that rows encoded into direct
+ * buffers can be passed to the pipe without being copied to the heap.
+ */
+public class NamedPipeOutputStream extends OutputStream implements GatheringByteChannel {
+  
+  /**
+   * Default size of the write buffer, the same as the default capacity
+   * of a pipe on Linux.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 65536;
+  
+  private NamedPipe namedPipe = null;
+  private byte[] oneByte = new byte[1];
+  private final EtlLogger logger;
+  
+  private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+  private int count = 0;
+  
+  // metrics
+  private long writeCount = 0;
+  private long bytesWritten = 0;
+  private long pipeWriteCount = 0;
+  // granted pipe capacity, kept once the pipe is closed
+  private int pipeCapacity = -1;
+  
+  public NamedPipeOutputStream(String pipeName) throws IOException {
+    this(pipeName, null, null);
+  }
+  
+  /**
+   * Creates and returns an OutputStream which can write to the named pipe.
+   * @param pipeName 
+   * @throws IOException 
+   */
+  public NamedPipeOutputStream(String pipeName, ClientProxy proxy) throws IOException {
+    this(pipeName, proxy, null);
+  }
+
+  /**
+   * Creates and returns an OutputStream which can write to the named pipe.
+   * @param pipeName
+   * @param proxy The client proxy to use (or null)
+   * @param logger 
+   * @throws IOException 
+   */
+  public NamedPipeOutputStream(String pipeName, ClientProxy proxy, EtlLogger logger) throws IOException {
+    this.logger = logger;
+    if (this.logger != null) {
+      this.logger.debug(String.format("creating named pipe client \"%s\"", pipeName));
+    }
+    namedPipe = new NamedPipeFactory(proxy).createClient(pipeName); 
+    namedPipe.connect();
+    if (logger != null) {
+      logger.debug("NamedPipeFactory.createClient(name) returned " + namedPipe);
+    }
+  }
+
+  /**
+   * Creates an OutputStream which writes to a pipe that already exists.
+   * @param namedPipe
+   * @param logger
+   * @throws IOException
+   */
+  NamedPipeOutputStream(NamedPipe namedPipe, EtlLogger logger) throws IOException {
+    this.logger = logger;
+    this.namedPipe = namedPipe;
+    namedPipe.connect();
+  }
+  
+  /** {@inheritDoc}
+   * @see java.io.OutputStream#write(int)
+   */
+  @Override
+  public void write(int b) throws IOException {
+    if (count < buffer.length) {
+      writeCount++;
+      bytesWritten++;
+      buffer[count++] = (byte) b;
+    } else {
+      oneByte[0] = (byte) b;
+      write(oneByte, 0, 1);
+    }
+  }
+
+  /** {@inheritDoc}
+   * @see java.io.OutputStream#write(byte[], int, int)
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    writeCount++;
+    bytesWritten += len;
+    if (len >= buffer.length) {
+      flushBuffer();
+      writeToPipe(b, off, len);
+    } else {
+      if (len > buffer.length - count) {
+        flushBuffer();
+      }
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (count > 0) {
+      writeToPipe(buffer, 0, count);
+      count = 0;
+    }
+  }
+
+  private void writeToPipe(byte[] b, int off, int len) throws IOException {
+    pipeWriteCount++;
+    int written = namedPipe.write(b, off, len);
+    if (written != len) {
+      throw new IOException(String.format("Meant to write %d bytes but wrote %d bytes", len, written));
+    }
+  }
+
+  //@Override
+  public int write(ByteBuffer src) throws IOException {
+    return (int) write(new ByteBuffer[] { src }, 0, 1);
+  }
+
+  //@Override
+  public long write(ByteBuffer[] srcs) throws IOException {
+    return write(srcs, 0, srcs.length);
+  }
+
+  /**
+   * Writes all remaining bytes of the buffers. Buffers that fit are
+   * copied into the write buffer like any other small write; otherwise
+   * the buffered data and the buffers go to the pipe in one gathering
+   * write.
+   */
+  //@Override
+  public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    long len = 0;
+    for (int i = offset; i < offset + length; i++) {
+      len += srcs[i].remaining();
+    }
+    writeCount++;
+    bytesWritten += len;
+    if (len <= buffer.length - count) {
+      for (int i = offset; i < offset + length; i++) {
+        int n = srcs[i].remaining();
+        srcs[i].get(buffer, count, n);
+        count += n;
+      }
+    } else {
+      ByteBuffer[] gather = new ByteBuffer[length + 1];
+      gather[0] = ByteBuffer.wrap(buffer, 0, count);
+      System.arraycopy(srcs, offset, gather, 1, length);
+      pipeWriteCount++;
+      namedPipe.write(gather);
+      count = 0;
+    }
+    return len;
+  }
+
+  //@Override
+  public boolean isOpen() {
+    return namedPipe != null;
+  }
+
+  /**
+   * Writes any buffered data to the pipe.
+   * 
+   * @see java.io.OutputStream#flush()
+   */
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+  }
+  
+  /** {@inheritDoc}
+   * @see java.io.OutputStream#close()
+   */
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      if (logger != null) {
+        logger.debug(String.format("named pipe closed: %d writes, %d bytes, %d pipe writes",
+            writeCount, bytesWritten, pipeWriteCount));
+      }
+      pipeCapacity = namedPipe.getCapacity();
+      namedPipe.close(); // terminates the load
+      namedPipe = null;
+    }
+  }
+
+  /**
+   * Changes the size of the write buffer. Any data already buffered is
+   * written first.
+   * 
+   * @param size the buffer size in bytes; 0 passes every write
+   *   straight to the pipe
+   * @throws IOException
+   */
+  public void setBufferSize(int size) throws IOException {
+    if (size < 0) {
+      throw new IllegalArgumentException("buffer size must not be negative");
+    }
+    flushBuffer();
+    if (size != buffer.length) {
+      buffer = new byte[size];
+    }
+  }
+
+  public int getBufferSize() {
+    return buffer.length;
+  }
+
+  /**
+   * Requests a capacity for the pipe's own buffer in the kernel. Only
+   * local Linux FIFOs support this, and it must be called before the
+   * first write.
+   * 
+   * @param capacity size in bytes, or 0 for the system default
+   */
+  public void setPipeCapacity(int capacity) {
+    namedPipe.setCapacity(capacity);
+  }
+
+  /**
+   * @return the pipe capacity granted by the kernel, or -1 if none was
+   *   set or the pipe is not open yet
+   */
+  public int getPipeCapacity() {
+    return namedPipe == null ? pipeCapacity : namedPipe.getCapacity();
+  }
+
+  /**
+   * @return number of write calls made on this stream
+   */
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  /**
+   * @return number of bytes written to this stream, including any still
+   *   in the buffer
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * @return number of writes passed to the pipe, each one a system call
+   *   (or a network send, for a remote pipe)
+   */
+  public long getPipeWriteCount() {
+    return pipeWriteCount;
+  }
+
+  /**
+   * @return average number of bytes per pipe write, or 0 if nothing has
+   *   been written to the pipe yet
+   */
+  public double getBytesPerPipeWrite() {
+    long pipeBytes = bytesWritten - count;
+    return (pipeWriteCount == 0) ? 0.0 : (double) pipeBytes / pipeWriteCount;
+  }
+  
+  /** {@inheritDoc}
+   * @see java.lang.Object#finalize()
+   */
+  @Override
+  protected void finalize() throws Throwable {
+    if (namedPipe != null) {
+      close();
+    }
+  }
+}
@@ -0,0 +1,467 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.infobright.etl.model.BrighthouseRecord;
+import com.infobright.etl.model.DataFormat;
+import com.infobright.logging.EtlLogger;
+
+/**
+ * Loads an unbounded stream of rows into a table as a series of loads,
+ * rolling over to the next load when the current one reaches a number
+ * of rows, a number of bytes or an age, whichever comes first. Usage:
+ * 
+ * <pre>
+ * StreamingLoader loader = new StreamingLoader(table, connection, logger, format, charset);
+ * BrighthouseRecord record = loader.createRecord(false);
+ * loader.setMaxRows(100000);
+ * loader.setMaxAgeMillis(5000);
+ * loader.start();
+ * while (...) {
+ *   record.setData(...);
+ *   loader.writeRow();
+ * }
+ * loader.close();
+ * </pre>
+ * 
+ * The rollover runs in the background: the current load is committed
+ * and the next one started while the producer goes on writing rows,
+ * which are kept in the record's buffer until the next load is ready.
+ * The buffer is limited to getMaxBufferedBytes(), 64 MB by default:
+ * once it is full, writeRow() blocks until the next load has started.
+ * The FIFO of the next load is created as soon as the current one has
+ * started. The age limit is also checked while no rows are written, so
+ * rows already written are committed on time.
+ * 
+ * Given a second session, on another connection, the loader keeps the
+ * next load armed on it: started, with its LOAD DATA statement waiting
+ * on its pipe. A rollover then only switches the rows over to that pipe,
+ * and the previous load is committed, and armed again, in the
+ * background. Until it is armed again the current load goes on past its
+ * limits.
+ * 
+ * writeRow() and close() must be called from one thread at a time.
+ */
+public class StreamingLoader {
+
+  // how often the age limit is checked, as a fraction of the limit
+  private static final int AGE_CHECKS_PER_LOAD = 10;
+
+  private static final long DEFAULT_MAX_BUFFERED_BYTES = 64L * 1024 * 1024;
+
+  private final InfobrightNamedPipeLoader loader;
+  private final LoaderSession[] sessions;
+  // runs the age check, which needs the lock
+  private final ScheduledExecutorService scheduler;
+  // runs the rollovers, which writeRow() and close() wait for while
+  // holding the lock, so never behind an age check
+  private final ExecutorService rolloverExecutor;
+
+  private BrighthouseRecord record = null;
+  private long maxRows = 0;
+  private long maxBytes = 0;
+  private long maxAgeMillis = 0;
+  private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+
+  // all guarded by this
+  private LoaderSession current;
+  // armed session ready to take over, in pipelined mode
+  private LoaderSession standby = null;
+  private OutputStream outputStream = null;
+  private Future<Void> rollover = null;
+  // session being rolled over
+  private LoaderSession rolloverSession = null;
+  // true while rows are kept in the record's buffer
+  private boolean buffering = false;
+  private int flushThreshold;
+  private long loadStartTime;
+  private long loadRows = 0;
+  private long loadStartBytes = 0;
+  private long rowCount = 0;
+  private boolean started = false;
+  private boolean closed = false;
+  // failure of a rollover started by the age check
+  private Exception failure = null;
+
+  public StreamingLoader(String tableName, Connection connection, EtlLogger logger,
+      DataFormat dataFormat, Charset charset) throws Exception {
+    this(new LoaderSession(tableName, connection, logger, dataFormat, charset));
+  }
+
+  /**
+   * Pipelined mode, where the next load is armed on a second connection.
+   */
+  public StreamingLoader(String tableName, Connection connection, Connection standbyConnection,
+      EtlLogger logger, DataFormat dataFormat, Charset charset) throws Exception {
+    this(new LoaderSession(tableName, connection, logger, dataFormat, charset),
+        new LoaderSession(tableName, standbyConnection, logger, dataFormat, charset));
+  }
+
+  /**
+   * @param session a session on which no load has been started
+   */
+  public StreamingLoader(LoaderSession session) {
+    this(new LoaderSession[] { session });
+  }
+
+  /**
+   * Pipelined mode, where loads alternate between two sessions, on
+   * different connections to the same database.
+   * 
+   * @param session a session on which no load has been started
+   * @param standby another one, for the same table
+   */
+  public StreamingLoader(LoaderSession session, LoaderSession standby) {
+    this(new LoaderSession[] { session, standby });
+  }
+
+  private StreamingLoader(LoaderSession[] sessions) {
+    this.sessions = sessions;
+    this.current = sessions[0];
+    this.loader = current.getLoader();
+    this.scheduler = new ScheduledThreadPoolExecutor(1, daemonThreads("StreamingLoader age check"));
+    this.rolloverExecutor = Executors.newSingleThreadExecutor(daemonThreads("StreamingLoader rollover"));
+  }
+
+  private static ThreadFactory daemonThreads(final String name) {
+    return new ThreadFactory() {
+      //@Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  /**
+   * @return the loader of the first session, for its settings
+   */
+  public InfobrightNamedPipeLoader getLoader() {
+    return loader;
+  }
+
+  /**
+   * Returns the record to set each row's values on. See
+   * InfobrightNamedPipeLoader.createRecord(boolean).
+   */
+  public BrighthouseRecord createRecord(boolean checkValues) throws SQLException {
+    record = loader.createRecord(checkValues);
+    for (int i = 1; i < sessions.length; i++) {
+      // one record serves all the loaders
+      sessions[i].getLoader().createRecord(checkValues);
+    }
+    return record;
+  }
+
+  /**
+   * Returns the record to set each row's values on, for some of the
+   * table's columns. See InfobrightNamedPipeLoader.createRecord(boolean, List).
+   */
+  public BrighthouseRecord createRecord(boolean checkValues, List<String> columnNames)
+      throws SQLException {
+    record = loader.createRecord(checkValues, columnNames);
+    for (int i = 1; i < sessions.length; i++) {
+      // one record serves all the loaders, but each needs the column list
+      sessions[i].getLoader().createRecord(checkValues, columnNames);
+    }
+    return record;
+  }
+
+  /**
+   * @param maxRows rows per load; 0 for no limit
+   */
+  public void setMaxRows(long maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  public long getMaxRows() {
+    return maxRows;
+  }
+
+  /**
+   * @param maxBytes bytes of encoded rows per load; 0 for no limit
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @param maxAgeMillis time after which a load is committed, counted
+   *   from its start; 0 for no limit
+   */
+  public void setMaxAgeMillis(long maxAgeMillis) {
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * Limits the rows kept in the record's buffer while the next load is
+   * being started, when there is no armed session to switch to. Once
+   * the limit is reached, writeRow() waits for the next load.
+   * 
+   * @param maxBufferedBytes bytes of encoded rows; 0 for no limit
+   */
+  public void setMaxBufferedBytes(long maxBufferedBytes) {
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  public long getMaxBufferedBytes() {
+    return maxBufferedBytes;
+  }
+
+  /**
+   * Starts the first load.
+   * 
+   * @throws Exception
+   * @throws IllegalStateException if no record was created, or already
+   *   started
+   */
+  public synchronized void start() throws Exception {
+    if (record == null) {
+      throw new IllegalStateException("createRecord() must be called before start()");
+    }
+    if (started) {
+      throw new IllegalStateException("already started");
+    }
+    started = true;
+    current.start();
+    loadStarted();
+    if (sessions.length > 1) {
+      standby = sessions[1];
+      standby.start();
+    }
+    for (LoaderSession session : sessions) {
+      session.getLoader().prepareFifoForNextLoad();
+    }
+    if (maxAgeMillis > 0) {
+      long period = Math.max(1, maxAgeMillis / AGE_CHECKS_PER_LOAD);
+      scheduler.scheduleWithFixedDelay(new Runnable() {
+        //@Override
+        public void run() {
+          checkAge();
+        }
+      }, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Writes the row set on the record, and rolls over to the next load
+   * if a limit is reached.
+   * 
+   * @throws Exception if writing failed, or if the last rollover failed
+   */
+  public synchronized void writeRow() throws Exception {
+    if (!started || closed) {
+      throw new IllegalStateException("not started or closed");
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    pollRollover();
+    record.writeTo(outputStream);
+    rowCount++;
+    loadRows++;
+    if (buffering && maxBufferedBytes > 0
+        && record.getBytesEncoded() - loadStartBytes >= maxBufferedBytes) {
+      // the rows since the rollover started are all in the buffer
+      waitForRollover();
+      record.flush(outputStream);
+    }
+    if (rollover == null && isLimitReached()) {
+      startRollover();
+    }
+  }
+
+  /**
+   * Commits the rows written and finishes the last load.
+   * 
+   * @throws Exception if the last load (or rollover) failed
+   */
+  public synchronized void close() throws Exception {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    scheduler.shutdown();
+    rolloverExecutor.shutdown();
+    try {
+      if (failure != null) {
+        throw failure;
+      }
+      if (started) {
+        if (rollover != null) {
+          waitForRollover();
+        }
+        record.flush(outputStream);
+        current.close();
+        if (standby != null) {
+          // an empty load
+          standby.close();
+        }
+      }
+    } finally {
+      for (LoaderSession session : sessions) {
+        session.getLoader().discardPreparedFifo();
+      }
+    }
+  }
+
+  /**
+   * @return total number of rows written
+   */
+  public synchronized long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return number of loads started
+   */
+  public int getLoadCount() {
+    int count = 0;
+    for (LoaderSession session : sessions) {
+      count += session.getLoadCount();
+    }
+    return count;
+  }
+
+  private boolean isLimitReached() {
+    return (maxRows > 0 && loadRows >= maxRows)
+        || (maxBytes > 0 && record.getBytesEncoded() - loadStartBytes >= maxBytes)
+        || (maxAgeMillis > 0 && System.currentTimeMillis() - loadStartTime >= maxAgeMillis);
+  }
+
+  /**
+   * Hands the current load over to the rollover thread, which commits it
+   * and starts the next load on the same session. In pipelined mode the
+   * rows go on to the armed session at once; otherwise they are kept in
+   * the record's buffer until the next load is ready.
+   */
+  private void startRollover() throws Exception {
+    record.flush(outputStream);
+    loadStartBytes = record.getBytesEncoded();
+    loadRows = 0;
+    final LoaderSession finishing = current;
+    if (standby != null) {
+      current = standby;
+      standby = null;
+      loadStarted();
+    } else {
+      flushThreshold = record.getFlushThreshold();
+      record.setFlushThreshold(Integer.MAX_VALUE);
+      buffering = true;
+    }
+    rolloverSession = finishing;
+    rollover = rolloverExecutor.submit(new Callable<Void>() {
+      //@Override
+      public Void call() throws Exception {
+        finishing.nextLoad();
+        finishing.getLoader().prepareFifoForNextLoad();
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Switches to the next load if the rollover has finished.
+   */
+  private void pollRollover() throws Exception {
+    if (rollover != null && rollover.isDone()) {
+      waitForRollover();
+    }
+  }
+
+  private void waitForRollover() throws Exception {
+    try {
+      rollover.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    } finally {
+      rollover = null;
+      if (buffering) {
+        record.setFlushThreshold(flushThreshold);
+        buffering = false;
+      }
+    }
+    if (rolloverSession == current) {
+      loadStarted();
+    } else {
+      // armed for the next rollover
+      standby = rolloverSession;
+    }
+    rolloverSession = null;
+  }
+
+  private void loadStarted() {
+    outputStream = current.getOutputStream();
+    loadStartTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Called periodically, so that a load is committed on time even when
+   * no rows are being written.
+   */
+  private synchronized void checkAge() {
+    if (closed || failure != null) {
+      return;
+    }
+    try {
+      pollRollover();
+      if (rollover == null && loadRows > 0 && isLimitReached()) {
+        startRollover();
+      }
+    } catch (Exception e) {
+      // reported by the next call to writeRow() or close()
+      failure = e;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.infobright.etl.model.datatype.AbstractColumnType;
+
+public class TextRecordTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final String EOL = System.getProperty("line.separator");
+
+  private static final GenericValueConverter CONVERTER = new GenericValueConverter();
+
+  @Test
+  public void testQuotesAndBackslashes() throws Exception {
+    String[] values = { "plain", "\"", "\\", "a\"b", "a\\b", "\"\"\"", "\\\\",
+        "ends with \\", "\\\"mixed\"\\", "", "\\N" };
+    TextRecord record = record(UTF8);
+    StringBuilder expected = new StringBuilder();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < values.length; i++) {
+      record.setData(0, Integer.valueOf(i), CONVERTER);
+      record.setData(1, values[i], CONVERTER);
+      record.writeTo(out);
+      expected.append(i).append(',').append(enclosed(values[i])).append(EOL);
+    }
+    record.flush(out);
+    assertOutput(expected.toString(), UTF8, out);
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    TextRecord record = record(UTF8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    record.setData(0, null, CONVERTER);
+    record.setData(1, null, CONVERTER);
+    record.writeTo(out);
+    record.setData(0, Integer.valueOf(7), CONVERTER);
+    record.setNull(1);
+    record.writeTo(out);
+    record.flush(out);
+    assertOutput("\\N,\\N" + EOL + "7,\\N" + EOL, UTF8, out);
+  }
+
+  /**
+   * A column never set is written as the zero value of its type.
+   */
+  @Test
+  public void testUnsetColumns() throws Exception {
+    TextRecord record = record(UTF8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    record.writeTo(out);
+    record.flush(out);
+    assertOutput("0,\"\"" + EOL, UTF8, out);
+  }
+
+  /**
+   * Rows accumulate past the initial size of the record buffer, with
+   * multibyte characters and escapes falling at every offset around its
+   * end, so that encoding and escaping overflow and the buffer grows.
+   */
+  @Test
+  public void testMultibyteAndEscapesAcrossBufferGrowth() throws Exception {
+    String[] tails = { "\u00e9", "\u20ac", "\ud83d\ude00", "\"", "\\", "\u00e9\"\u20ac\\" };
+    TextRecord record = record(UTF8);
+    record.setFlushThreshold(1 << 20);
+    StringBuilder expected = new StringBuilder();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int row = 0;
+    for (int len = 0; len < 300; len++) {
+      for (String tail : tails) {
+        String value = repeat('x', len) + tail + repeat('\\', len % 3) + tail;
+        record.setData(0, Integer.valueOf(row), CONVERTER);
+        record.setData(1, value, CONVERTER);
+        record.writeTo(out);
+        expected.append(row++).append(',').append(enclosed(value)).append(EOL);
+      }
+    }
+    // nothing is written before the threshold is reached
+    assertEquals(0, out.size());
+    record.flush(out);
+    assertOutput(expected.toString(), UTF8, out);
+  }
+
+  /**
+   * A single value larger than the record buffer, made mostly of bytes
+   * that need escaping, grows the buffer while escaping in place.
+   */
+  @Test
+  public void testEscapingOverflowsBuffer() throws Exception {
+    TextRecord record = record(UTF8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int len = 4000; len < 4200; len += 7) {
+      String value = repeat('"', len) + "\u20ac" + repeat('\\', len);
+      record.setData(0, Integer.valueOf(len), CONVERTER);
+      record.setData(1, value, CONVERTER);
+      out.reset();
+      record.writeTo(out);
+      record.flush(out);
+      assertOutput(len + "," + enclosed(value) + EOL, UTF8, out);
+    }
+  }
+
+  /**
+   * In Big5 the second byte of a character may be a backslash, which
+   * must not be escaped.
+   */
+  @Test
+  public void testMultibyteCharsetWithBackslashBytes() throws Exception {
+    Charset big5 = Charset.forName("Big5");
+    String value = "\u8a31\"\\\u529f";
+    TextRecord record = record(big5);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    record.setData(0, Integer.valueOf(1), CONVERTER);
+    record.setData(1, value, CONVERTER);
+    record.writeTo(out);
+    record.flush(out);
+    assertOutput("1," + enclosed(value) + EOL, big5, out);
+  }
+
+  private static TextRecord record(Charset charset) {
+    List<AbstractColumnType> columns = new ArrayList<AbstractColumnType>();
+    columns.add(AbstractColumnType.getInstance("id", Types.INTEGER, "INT", 11, 0, charset, null));
+    columns.add(AbstractColumnType.getInstance("name", Types.VARCHAR, "VARCHAR", 65535, 0, charset, null));
+    return new TextRecord(columns, charset);
+  }
+
+  private static void assertOutput(String expected, Charset charset, ByteArrayOutputStream out)
+      throws Exception {
+    assertArrayEquals(expected.getBytes(charset.name()), out.toByteArray());
+  }
+
+  /**
+   * The reference form of a text field: enclosed in quotes, with quotes
+   * and backslashes escaped.
+   */
+  private static String enclosed(String value) {
+    StringBuilder buf = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        buf.append('\\');
+      }
+      buf.append(c);
+    }
+    return buf.append('"').toString();
+  }
+
+  private static String repeat(char c, int count) {
+    StringBuilder buf = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      buf.append(c);
+    }
+    return buf.toString();
+  }
+}
@@ -0,0 +1,275 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.infobright.etl.model.GenericValueConverter;
+
+/**
+ * Compares the date types with SimpleDateFormat on a proleptic
+ * Gregorian calendar, which is what MySQL uses for dates before 1582.
+ */
+public class DateTypeTest {
+
+  private static final GenericValueConverter CONVERTER = new GenericValueConverter();
+
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private final TimeZone defaultZone = TimeZone.getDefault();
+
+  @After
+  public void restoreTimeZone() {
+    TimeZone.setDefault(defaultZone);
+  }
+
+  @Test
+  public void testSweepUTC() {
+    sweep("UTC");
+  }
+
+  @Test
+  public void testSweepRome() {
+    sweep("Europe/Rome");
+  }
+
+  @Test
+  public void testSweepNewYork() {
+    sweep("America/New_York");
+  }
+
+  @Test
+  public void testDaylightSavingRome() {
+    TimeZone.setDefault(TimeZone.getTimeZone("Europe/Rome"));
+    // gap at 2021-03-28 02:00 local, overlap at 2021-10-31 03:00 local
+    around(utc(2021, 3, 28, 1, 0, 0));
+    around(utc(2021, 10, 31, 1, 0, 0));
+    // wartime and 1960s rules
+    around(utc(1940, 6, 14, 23, 0, 0));
+    around(utc(1966, 5, 21, 23, 0, 0));
+    assertDatetime("2021-10-31 02:30:00", utc(2021, 10, 31, 0, 30, 0));
+    assertDatetime("2021-10-31 02:30:00", utc(2021, 10, 31, 1, 30, 0));
+  }
+
+  @Test
+  public void testDaylightSavingNewYork() {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    // gap at 2021-03-14 02:00 local, overlap at 2021-11-07 02:00 local
+    around(utc(2021, 3, 14, 7, 0, 0));
+    around(utc(2021, 11, 7, 6, 0, 0));
+    around(utc(1918, 3, 31, 7, 0, 0));
+    assertDatetime("2021-11-07 01:30:00", utc(2021, 11, 7, 5, 30, 0));
+    assertDatetime("2021-11-07 01:30:00", utc(2021, 11, 7, 6, 30, 0));
+  }
+
+  /**
+   * Local times are kept as given, even when they fall in a gap.
+   */
+  @Test
+  public void testLocalTimeInGap() {
+    TimeZone.setDefault(TimeZone.getTimeZone("Europe/Rome"));
+    DatetimeType col = new DatetimeType();
+    col.setData("2021-03-28 02:30:00");
+    assertEquals("2021-03-28 02:30:00", col.getDataAsString());
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    col = new DatetimeType();
+    col.setData("2021-03-14 02:30:00");
+    assertEquals("2021-03-14 02:30:00", col.getDataAsString());
+  }
+
+  @Test
+  public void testNegativeMillis() {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    assertDatetime("1969-12-31 23:59:59", -1L);
+    assertDatetime("1969-12-31 23:59:59", -1000L);
+    assertDatetime("1969-12-31 23:59:58", -1001L);
+    assertDatetime("1969-12-31 00:00:00", -MILLIS_PER_DAY);
+    assertDatetime("1969-12-30 23:59:59", -MILLIS_PER_DAY - 1);
+    for (long millis = -3 * MILLIS_PER_DAY; millis < 3 * MILLIS_PER_DAY; millis += 9999) {
+      compare(millis);
+    }
+  }
+
+  @Test
+  public void testPreGregorianDates() {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    // 1582-10-05 to 1582-10-14 only exist in the proleptic calendar
+    for (int day = 1; day <= 20; day++) {
+      String date = String.format("1582-10-%02d", day);
+      assertEquals(date, roundTrip(new DateIntType(), date));
+      compare(utc(1582, 10, day, 12, 0, 0));
+    }
+    // 1500 is a leap year in the Julian calendar only, 1200 in both
+    assertEquals("1500-03-01", roundTrip(new DateIntType(), "1500-02-29"));
+    assertEquals("1200-02-29", roundTrip(new DateIntType(), "1200-02-29"));
+    assertEquals("0001-01-01 00:00:00", roundTrip(new DatetimeType(), "0001-01-01 00:00:00"));
+    compare(utc(1, 1, 1, 0, 0, 0));
+    compare(utc(1000, 2, 28, 23, 59, 59));
+  }
+
+  @Test
+  public void testPre1900Dates() {
+    TimeZone.setDefault(TimeZone.getTimeZone("Europe/Rome"));
+    // local mean time, with an offset in seconds
+    around(utc(1866, 12, 11, 23, 0, 0));
+    compare(utc(1899, 12, 31, 23, 59, 59));
+    DateIntType col = new DateIntType();
+    col.setData("1850-06-15");
+    assertEquals(-499385, dateInt(col));
+    col.setData("1899-12-31");
+    assertEquals(-8769, dateInt(col));
+    col.setData("1900-01-01");
+    assertEquals(101, dateInt(col));
+  }
+
+  @Test
+  public void testYear9999() {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    assertEquals("9999-12-31 23:59:59", roundTrip(new DatetimeType(), "9999-12-31 23:59:59"));
+    assertEquals("9999-12-31", roundTrip(new DateIntType(), "9999-12-31"));
+    assertEquals("9999", roundTrip(new YearType(), "9999"));
+    around(utc(9999, 12, 31, 12, 0, 0));
+    DateIntType col = new DateIntType();
+    col.setData("9999-12-31");
+    assertEquals(80991231, dateInt(col));
+  }
+
+  @Test
+  public void testBinaryDateIntRoundTrip() throws Exception {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    DateIntType col = new DateIntType();
+    DateIntType back = new DateIntType();
+    for (long millis = utc(1, 1, 1, 0, 0, 0); millis < utc(9999, 12, 31, 0, 0, 0);
+        millis += 37 * MILLIS_PER_DAY + 12345) {
+      col.setLong(millis);
+      ByteBuffer bb = ByteBuffer.allocate(4);
+      col.getData(bb);
+      bb.flip();
+      back.setData(bb);
+      assertEquals(col.getDataAsString(), back.getDataAsString());
+    }
+  }
+
+  /**
+   * Compares every column type with the reference for times spread over
+   * years 1 to 9999, in the given default time zone.
+   */
+  private void sweep(String zone) {
+    TimeZone.setDefault(TimeZone.getTimeZone(zone));
+    long end = utc(9999, 12, 31, 0, 0, 0);
+    for (long millis = utc(1, 1, 2, 0, 0, 0); millis < end; millis += 97 * MILLIS_PER_DAY + 3723001) {
+      compare(millis);
+    }
+  }
+
+  /**
+   * Compares every seven seconds for three hours either side of an instant.
+   */
+  private void around(long millis) {
+    for (long m = millis - 3 * 3600000L; m <= millis + 3 * 3600000L; m += 7000) {
+      compare(m);
+    }
+  }
+
+  /**
+   * Compares every column type set from the given instant, as a long
+   * and as a Date, with SimpleDateFormat in the default time zone.
+   */
+  private static void compare(long millis) {
+    compare(new DatetimeType(), "yyyy-MM-dd HH:mm:ss", millis);
+    compare(new DateIntType(), "yyyy-MM-dd", millis);
+    compare(new TimeType(), "HH:mm:ss", millis);
+    compare(new YearType(), "yyyy", millis);
+  }
+
+  private static void compare(DateType col, String pattern, long millis) {
+    String expected = reference(pattern).format(new Date(millis));
+    col.setLong(millis);
+    assertEquals("millis " + millis, expected, col.getDataAsString());
+    assertEquals("millis " + millis, expected, text(col));
+    col.setData(new Date(millis), CONVERTER);
+    assertEquals("millis " + millis, expected, col.getDataAsString());
+  }
+
+  private static void assertDatetime(String expected, long millis) {
+    DatetimeType col = new DatetimeType();
+    col.setData(Long.valueOf(millis), CONVERTER);
+    assertEquals(expected, col.getDataAsString());
+    assertEquals(expected, reference("yyyy-MM-dd HH:mm:ss").format(new Date(millis)));
+  }
+
+  private static String roundTrip(DateType col, String value) {
+    col.setData(value);
+    return col.getDataAsString();
+  }
+
+  private static int dateInt(DateIntType col) {
+    ByteBuffer bb = ByteBuffer.allocate(4);
+    col.getData(bb);
+    bb.flip();
+    return bb.getInt();
+  }
+
+  private static String text(DateType col) {
+    ByteBuffer bb = ByteBuffer.allocate(32);
+    col.getDataAsText(bb);
+    return new String(bb.array(), 0, bb.position());
+  }
+
+  /**
+   * @return a format in the default time zone, on a Gregorian calendar
+   * without the Julian cutover
+   */
+  private static SimpleDateFormat reference(String pattern) {
+    GregorianCalendar cal = new GregorianCalendar(TimeZone.getDefault());
+    cal.setGregorianChange(new Date(Long.MIN_VALUE));
+    SimpleDateFormat format = new SimpleDateFormat(pattern);
+    format.setCalendar(cal);
+    return format;
+  }
+
+  /**
+   * @return milliseconds since the epoch of a proleptic Gregorian UTC
+   * date and time
+   */
+  private static long utc(int year, int month, int day, int hour, int minute, int second) {
+    GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    cal.setGregorianChange(new Date(Long.MIN_VALUE));
+    cal.clear();
+    cal.set(year, month - 1, day, hour, minute, second);
+    return cal.getTimeInMillis();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.etl.model.datatype;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.sql.Types;
+
+import org.junit.Test;
+
+import com.infobright.etl.model.GenericValueConverter;
+import com.infobright.etl.model.ValueConverterException;
+
+public class DecimalTypeTest {
+
+  private static final GenericValueConverter CONVERTER = new GenericValueConverter();
+
+  @Test
+  public void testRoundsHalfUp() {
+    assertString("78", 4, 0, "77.5");
+    assertString("77", 4, 0, "77.49");
+    assertString("-78", 4, 0, "-77.5");
+    assertString("1.01", 5, 2, "1.005");
+    assertString("1.00", 5, 2, "1.0049999");
+    assertString("-1.01", 5, 2, "-1.005");
+    assertString("0.13", 5, 2, Double.valueOf(0.125));
+    assertString("-3", 4, 0, Double.valueOf(-2.5));
+  }
+
+  @Test
+  public void testRoundedValueInBinary() throws Exception {
+    DecimalType col = new DecimalType(4, 0);
+    col.setData("77.5", CONVERTER);
+    ByteBuffer bb = binary(col);
+    assertEquals(2, bb.remaining());
+    assertEquals(78, bb.getShort());
+  }
+
+  @Test
+  public void testNegativeValues() {
+    assertString("-12.34", 5, 2, "-12.34");
+    assertString("-0.05", 5, 2, "-0.05");
+    assertString("-0.50", 5, 2, Double.valueOf(-0.5));
+    assertString("-7.00", 5, 2, Long.valueOf(-7));
+    DecimalType col = new DecimalType(9, 2);
+    col.setData("-12.34", CONVERTER);
+    assertEquals(-1234, binary(col).getInt());
+  }
+
+  @Test
+  public void testMaxAndMinForPrecision() {
+    assertString("999.99", 5, 2, "999.99");
+    assertString("-999.99", 5, 2, "-999.99");
+    assertString("99", 2, 0, Integer.valueOf(99));
+    assertString("999999999999999999", 18, 0, "999999999999999999");
+    assertString("-999999999999999999", 18, 0, Long.valueOf(-999999999999999999L));
+    assertTooLarge(5, 2, "1000");
+    assertTooLarge(5, 2, "-1000.00");
+    assertTooLarge(5, 2, "999.995");
+    assertTooLarge(5, 2, Long.valueOf(1000));
+    assertTooLarge(5, 2, Double.valueOf(-1000.0));
+    assertTooLarge(18, 0, "1000000000000000000");
+  }
+
+  @Test
+  public void testPrecisionLimitsBinaryWidth() {
+    DecimalType col = new DecimalType(2, 0);
+    col.setData("-99", CONVERTER);
+    ByteBuffer bb = binary(col);
+    assertEquals(1, bb.remaining());
+    assertEquals(-99, bb.get());
+    col = new DecimalType(18, 4);
+    col.setData("12345678901234.5678", CONVERTER);
+    bb = binary(col);
+    assertEquals(8, bb.remaining());
+    assertEquals(123456789012345678L, bb.getLong());
+  }
+
+  @Test
+  public void testExponentStrings() {
+    assertString("150.00", 5, 2, "1.5E2");
+    assertString("0.01", 5, 2, "1e-2");
+    assertString("-0.25", 5, 2, "-2.5E-1");
+    assertString("0.01", 5, 2, "5E-3");
+    assertTooLarge(5, 2, "1E3");
+  }
+
+  @Test
+  public void testPadsToScale() {
+    assertString("1.00", 5, 2, "1");
+    assertString("1.00", 5, 2, Long.valueOf(1));
+    assertString("0.50", 5, 2, "0.5");
+    assertString("0.50", 5, 2, ".5");
+    assertString("0.000001", 10, 6, "0.000001");
+    assertString("0.00", 5, 2, "0");
+  }
+
+  @Test
+  public void testNotANumber() {
+    DecimalType col = new DecimalType(5, 2);
+    for (String s : new String[] { "", "-", "1.2.3", "abc" }) {
+      try {
+        col.setData(s, CONVERTER);
+        fail("accepted \"" + s + "\"");
+      } catch (ValueConverterException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testAgreesWithBigDecimal() {
+    String[] values = { "0", "1", "-1", "3.14159", "-2.71828", "99.995", "12.3449",
+        "0.0049", "-0.005", "+42", "123.456e-1", "0.00" };
+    int[][] sizes = { { 5, 2 }, { 9, 4 }, { 18, 6 }, { 4, 0 } };
+    for (int[] size : sizes) {
+      for (String value : values) {
+        String expected = new BigDecimal(value).setScale(size[1], BigDecimal.ROUND_HALF_UP).toPlainString();
+        assertString(expected, size[0], size[1], value);
+      }
+    }
+  }
+
+  @Test
+  public void testCustomConverterIsUsed() {
+    DecimalType col = new DecimalType(5, 2);
+    col.setData("1.5", new GenericValueConverter() {
+      @Override
+      public BigDecimal getBigNumber(Object object) {
+        return new BigDecimal(object.toString()).negate();
+      }
+    });
+    assertEquals("-1.50", col.getDataAsString());
+  }
+
+  @Test
+  public void testScaleOver18() {
+    AbstractColumnType col = AbstractColumnType.getInstance("d", Types.DECIMAL, "DECIMAL",
+        30, 20, Charset.forName("UTF-8"), null);
+    assertTrue(col instanceof WideDecimalType);
+    col.setData("1.5", CONVERTER);
+    assertEquals("1.50000000000000000000", col.getDataAsString());
+    assertEquals("1.50000000000000000000", text(col));
+    AbstractColumnType copy = col.copy();
+    assertTrue(copy instanceof WideDecimalType);
+  }
+
+  private static void assertString(String expected, int precision, int scale, Object value) {
+    DecimalType col = new DecimalType(precision, scale);
+    col.setData(value, CONVERTER);
+    assertEquals(value.toString(), expected, col.getDataAsString());
+    assertEquals(value.toString(), expected, text(col));
+    if (value instanceof String) {
+      col.setData((String) value);
+      assertEquals(value.toString(), expected, col.getDataAsString());
+    }
+  }
+
+  private static void assertTooLarge(int precision, int scale, Object value) {
+    DecimalType col = new DecimalType(precision, scale);
+    try {
+      col.setData(value, CONVERTER);
+      fail("accepted " + value + " as DECIMAL(" + precision + "," + scale + ")");
+    } catch (ValueConverterException e) {
+      // expected
+    }
+  }
+
+  private static String text(AbstractColumnType col) {
+    ByteBuffer bb = ByteBuffer.allocate(64);
+    col.getDataAsText(bb);
+    return new String(bb.array(), 0, bb.position());
+  }
+
+  private static ByteBuffer binary(AbstractColumnType col) {
+    ByteBuffer bb = ByteBuffer.allocate(8);
+    col.getData(bb);
+    bb.flip();
+    return bb;
+  }
+}
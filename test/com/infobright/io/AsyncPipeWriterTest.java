@@ -0,0 +1,147 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.infobright.etl.model.BrighthouseRecord;
+import com.infobright.etl.model.DataFormat;
+import com.infobright.etl.model.GenericValueConverter;
+
+public class AsyncPipeWriterTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final GenericValueConverter CONVERTER = new GenericValueConverter();
+
+  /**
+   * Rows encoded into the pool buffers reach the stream in order, in
+   * full buffers, mixed with bytes written directly.
+   */
+  @Test(timeout = 20000)
+  public void testRecordsEncodeIntoPoolBuffers() throws Exception {
+    FakeConnection db = new FakeConnection();
+    StreamingLoader loader = new StreamingLoader("t", db.getConnection(), null,
+        DataFormat.TXT_VARIABLE, UTF8);
+    BrighthouseRecord record = loader.createRecord(false);
+    BrighthouseRecord reference = new StreamingLoader("t", db.getConnection(), null,
+        DataFormat.TXT_VARIABLE, UTF8).createRecord(false);
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoadExecutor executor = new LoadExecutor(Executors.newCachedThreadPool());
+    AsyncPipeWriter writer = new AsyncPipeWriter(out, 3, 4096, executor);
+    for (int i = 0; i < 20000; i++) {
+      record.setData(0, Integer.valueOf(i), CONVERTER);
+      record.setData(1, "row " + i, CONVERTER);
+      record.writeTo(writer);
+      reference.setData(0, Integer.valueOf(i), CONVERTER);
+      reference.setData(1, "row " + i, CONVERTER);
+      reference.writeTo(expected);
+      if (i % 5000 == 4999) {
+        record.flush(writer);
+        byte[] marker = ("-- " + i + "\n").getBytes("UTF-8");
+        writer.write(marker);
+        expected.write(marker);
+      }
+    }
+    record.flush(writer);
+    writer.close();
+    assertArrayEquals(expected.toByteArray(), out.toByteArray());
+    // nearly every buffer was full
+    long buffers = writer.getBuffersWritten();
+    assertTrue("buffers written " + buffers, buffers < out.size() / 3500 + 10);
+    assertEquals(1, executor.getCompleted() + executor.getActive());
+  }
+
+  /**
+   * In async mode stop() flushes the rows the record still holds, and
+   * the writer runs on the loader's executor.
+   */
+  @Test(timeout = 20000)
+  public void testLoaderInAsyncMode() throws Exception {
+    FakeConnection db = new FakeConnection();
+    InfobrightNamedPipeLoader loader = new InfobrightNamedPipeLoader("t", db.getConnection(),
+        null, DataFormat.TXT_VARIABLE, UTF8);
+    LoadExecutor executor = new LoadExecutor(Executors.newCachedThreadPool());
+    loader.setLoadExecutor(executor);
+    loader.setAsyncBuffers(2, 1024);
+    BrighthouseRecord record = loader.createRecord(false);
+    loader.start();
+    OutputStream os = loader.getOutputStream2();
+    long bytes = 0;
+    for (int i = 0; i < 1000; i++) {
+      record.setData(0, Integer.valueOf(i), CONVERTER);
+      record.setData(1, "r", CONVERTER);
+      record.writeTo(os);
+      bytes += (i + ",\"r\"").length() + System.getProperty("line.separator").length();
+    }
+    loader.stop();
+    assertEquals(bytes, db.getTotalBytes());
+    // the load and the writer; they may not have returned yet
+    assertEquals(2, executor.getCompleted() + executor.getActive());
+    assertTrue(loader.getAsyncWriter().getBuffersWritten() > 1);
+  }
+
+  /**
+   * An error writing to the stream is thrown to the caller.
+   */
+  @Test(timeout = 20000)
+  public void testWriteError() throws Exception {
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("broken pipe");
+      }
+    };
+    AsyncPipeWriter writer = new AsyncPipeWriter(failing, 2, 16);
+    try {
+      for (int i = 0; i < 100; i++) {
+        writer.write(new byte[16]);
+      }
+      writer.flush();
+      fail("no error");
+    } catch (IOException e) {
+      assertEquals("broken pipe", e.getMessage());
+    }
+    try {
+      writer.close();
+      fail("no error");
+    } catch (IOException e) {
+      assertEquals("broken pipe", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A JDBC connection to a pretend server with one table of two columns,
+ * id INT and name VARCHAR(20). LOAD DATA statements read the named pipe
+ * to the end and record how many bytes they got; SET statements are
+ * counted; other statements do nothing.
+ */
+class FakeConnection {
+
+  private final List<Long> loadBytes = Collections.synchronizedList(new ArrayList<Long>());
+  private volatile long commitDelayMillis = 0;
+  private volatile int setCount = 0;
+  private final Connection connection;
+
+  FakeConnection() {
+    final ResultSetMetaData md = proxy(ResultSetMetaData.class, new InvocationHandler() {
+      //@Override
+      public Object invoke(Object p, Method m, Object[] args) {
+        String name = m.getName();
+        boolean first = args != null && ((Integer) args[0]).intValue() == 1;
+        if (name.equals("getColumnCount")) {
+          return 2;
+        } else if (name.equals("getColumnName")) {
+          return first ? "id" : "name";
+        } else if (name.equals("getColumnType")) {
+          return first ? Types.INTEGER : Types.VARCHAR;
+        } else if (name.equals("getColumnTypeName")) {
+          return first ? "INT" : "VARCHAR";
+        }
+        return 20;
+      }
+    });
+    final ResultSet rs = proxy(ResultSet.class, new InvocationHandler() {
+      //@Override
+      public Object invoke(Object p, Method m, Object[] args) {
+        return m.getName().equals("getMetaData") ? md : null;
+      }
+    });
+    final DatabaseMetaData dmd = proxy(DatabaseMetaData.class, new InvocationHandler() {
+      //@Override
+      public Object invoke(Object p, Method m, Object[] args) {
+        return m.getName().equals("getURL") ? "jdbc:mysql://localhost/test" : null;
+      }
+    });
+    final InvocationHandler statement = new InvocationHandler() {
+      //@Override
+      public Object invoke(Object p, Method m, Object[] args) throws Exception {
+        if (m.getName().equals("executeQuery")) {
+          return rs;
+        } else if (m.getName().equals("execute")) {
+          String sql = (String) args[0];
+          if (sql.startsWith("load data")) {
+            load(sql);
+          } else if (sql.startsWith("set ")) {
+            setCount++;
+          }
+          return false;
+        }
+        return null;
+      }
+    };
+    connection = proxy(Connection.class, new InvocationHandler() {
+      //@Override
+      public Object invoke(Object p, Method m, Object[] args) {
+        if (m.getName().equals("createStatement")) {
+          return proxy(Statement.class, statement);
+        } else if (m.getName().equals("getMetaData")) {
+          return dmd;
+        }
+        return null;
+      }
+    });
+  }
+
+  private void load(String sql) throws Exception {
+    int start = sql.indexOf("infile '") + 8;
+    InputStream in = new FileInputStream(sql.substring(start, sql.indexOf('\'', start)));
+    long total = 0;
+    try {
+      byte[] buf = new byte[65536];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        total += n;
+      }
+    } finally {
+      in.close();
+    }
+    Thread.sleep(commitDelayMillis);
+    loadBytes.add(total);
+  }
+
+  private static <T> T proxy(Class<T> cls, InvocationHandler handler) {
+    return cls.cast(Proxy.newProxyInstance(cls.getClassLoader(), new Class<?>[] { cls }, handler));
+  }
+
+  Connection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Makes every load take this long after reading its pipe.
+   */
+  void setCommitDelayMillis(long millis) {
+    commitDelayMillis = millis;
+  }
+
+  /**
+   * @return bytes received by each load, in order
+   */
+  List<Long> getLoadBytes() {
+    return loadBytes;
+  }
+
+  /**
+   * @return number of SET statements executed
+   */
+  int getSetCount() {
+    return setCount;
+  }
+
+  long getTotalBytes() {
+    long total = 0;
+    synchronized (loadBytes) {
+      for (Long bytes : loadBytes) {
+        total += bytes.longValue();
+      }
+    }
+    return total;
+  }
+}
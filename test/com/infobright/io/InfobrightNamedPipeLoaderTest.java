@@ -0,0 +1,78 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.infobright.etl.model.BrighthouseRecord;
+import com.infobright.etl.model.DataFormat;
+import com.infobright.etl.model.GenericValueConverter;
+
+public class InfobrightNamedPipeLoaderTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * The session variables are set once for a reused loader, and again
+   * after the timeout is changed.
+   */
+  @Test(timeout = 20000)
+  public void testSetupRepeatedAfterTimeoutChange() throws Exception {
+    FakeConnection db = new FakeConnection();
+    InfobrightNamedPipeLoader loader = new InfobrightNamedPipeLoader("t", db.getConnection(),
+        null, DataFormat.TXT_VARIABLE, UTF8);
+    BrighthouseRecord record = loader.createRecord(false);
+    load(loader, record);
+    int setCount = db.getSetCount();
+    assertEquals(1, db.getLoadBytes().size());
+
+    loader.prepareNextLoad();
+    load(loader, record);
+    assertEquals(setCount, db.getSetCount());
+
+    loader.setTimeout(loader.getTimeout() + 60);
+    loader.prepareNextLoad();
+    load(loader, record);
+    assertEquals(2 * setCount, db.getSetCount());
+    assertEquals(3, db.getLoadBytes().size());
+  }
+
+  private static void load(InfobrightNamedPipeLoader loader, BrighthouseRecord record)
+      throws Exception {
+    loader.start();
+    OutputStream out = loader.getOutputStream2();
+    record.setData(0, Integer.valueOf(1), new GenericValueConverter());
+    record.setData(1, "a", new GenericValueConverter());
+    record.writeTo(out);
+    record.flush(out);
+    loader.stop();
+  }
+}
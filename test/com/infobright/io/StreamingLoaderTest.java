@@ -0,0 +1,98 @@
+/*
+The MIT License
+
+Copyright (c) 2009 Infobright Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a
+copy of this software and associated documentation files (the "Software"),
+to deal in the Software without restriction, including without limitation
+the rights to use, copy, modify, merge, publish, distribute, sublicense,
+and/or sell copies of the Software, and to permit persons to whom the
+Software is furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.infobright.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.infobright.etl.model.BrighthouseRecord;
+import com.infobright.etl.model.DataFormat;
+import com.infobright.etl.model.GenericValueConverter;
+
+public class StreamingLoaderTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * Rows written while slow rollovers are in progress, with the age check
+   * running and the rollover buffer full, all reach the server, and both
+   * writing and closing finish.
+   */
+  @Test(timeout = 20000)
+  public void testRolloverWithAgeLimitAndFullBuffer() throws Exception {
+    FakeConnection db = new FakeConnection();
+    db.setCommitDelayMillis(100);
+    StreamingLoader loader = new StreamingLoader("t", db.getConnection(), null,
+        DataFormat.TXT_VARIABLE, UTF8);
+    BrighthouseRecord record = loader.createRecord(false);
+    record.setFlushThreshold(1024);
+    loader.setMaxAgeMillis(20);
+    loader.setMaxRows(500);
+    loader.setMaxBufferedBytes(2000);
+    loader.start();
+    GenericValueConverter conv = new GenericValueConverter();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      record.setData(0, i, conv);
+      record.setData(1, "x" + i, conv);
+      loader.writeRow();
+      expected.append(i).append(",\"x").append(i).append("\"\n");
+    }
+    loader.close();
+    assertEquals(5000, loader.getRowCount());
+    assertTrue(loader.getLoadCount() > 1);
+    assertEquals(expected.length(), db.getTotalBytes());
+  }
+
+  /**
+   * close() while a rollover is still committing the previous load.
+   */
+  @Test(timeout = 20000)
+  public void testCloseDuringRollover() throws Exception {
+    FakeConnection db = new FakeConnection();
+    db.setCommitDelayMillis(300);
+    StreamingLoader loader = new StreamingLoader("t", db.getConnection(), null,
+        DataFormat.TXT_VARIABLE, UTF8);
+    BrighthouseRecord record = loader.createRecord(false);
+    loader.setMaxAgeMillis(10);
+    loader.setMaxRows(10);
+    loader.start();
+    GenericValueConverter conv = new GenericValueConverter();
+    for (int i = 0; i < 15; i++) {
+      record.setData(0, i, conv);
+      record.setData(1, "y", conv);
+      loader.writeRow();
+    }
+    Thread.sleep(50);
+    loader.close();
+    assertEquals(2, loader.getLoadCount());
+    assertEquals(15 * "0,\"y\"\n".length() + 5, db.getTotalBytes());
+  }
+}